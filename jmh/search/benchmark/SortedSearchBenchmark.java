@@ -0,0 +1,144 @@
+package search.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import search.SortedSearch;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск позиции вставки: {@link Arrays#binarySearch(int[], int)} против вариантов {@link SortedSearch}
+ * по одному ключу и пакетами, в обычной раскладке и раскладке Эйтцингера, для int и long.
+ * <p>
+ * Каждый вызов ищет один и тот же набор из {@value #QUERIES} случайных ключей, время выводится на ключ.
+ * На массивах больше кеша процессора основное время - промахи кеша, поэтому выигрывают пакетные варианты.
+ * Данные int и long - отдельные состояния, поэтому бенчмарки int не строят массивы long
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = "-Xmx4g")
+@OperationsPerInvocation(SortedSearchBenchmark.QUERIES)
+public class SortedSearchBenchmark {
+    static final int QUERIES = 1_000_000;
+
+    @State(Scope.Benchmark)
+    public static class IntData {
+        @Param({"1000", "1000000", "100000000"})
+        public int size;
+
+        int[] sorted;
+        int[] keys;
+        int[] result;
+        SortedSearch.Eytzinger eytzinger;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            Random random = new Random(42);
+            sorted = random.ints(size).sorted().toArray();
+            keys = random.ints(QUERIES).toArray();
+            result = new int[QUERIES];
+            eytzinger = new SortedSearch.Eytzinger(sorted);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class LongData {
+        @Param({"1000", "1000000", "100000000"})
+        public int size;
+
+        long[] sorted;
+        long[] keys;
+        int[] result;
+        SortedSearch.LongEytzinger eytzinger;
+
+        @Setup(Level.Trial)
+        public void generate() {
+            Random random = new Random(42);
+            sorted = random.longs(size).sorted().toArray();
+            keys = random.longs(QUERIES).toArray();
+            result = new int[QUERIES];
+            eytzinger = new SortedSearch.LongEytzinger(sorted);
+        }
+    }
+
+    @Benchmark
+    public long binarySearch(IntData data) {
+        long sum = 0;
+        for (int key : data.keys) {
+            sum += Arrays.binarySearch(data.sorted, key);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long branchless(IntData data) {
+        long sum = 0;
+        for (int key : data.keys) {
+            sum += SortedSearch.searchInsert(data.sorted, key);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int[] branchlessBatch(IntData data) {
+        SortedSearch.searchInsert(data.sorted, data.keys, data.result);
+        return data.result;
+    }
+
+    @Benchmark
+    public long eytzinger(IntData data) {
+        long sum = 0;
+        for (int key : data.keys) {
+            sum += data.eytzinger.searchInsert(key);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int[] eytzingerBatch(IntData data) {
+        data.eytzinger.searchInsert(data.keys, data.result);
+        return data.result;
+    }
+
+    @Benchmark
+    public long binarySearchLong(LongData data) {
+        long sum = 0;
+        for (long key : data.keys) {
+            sum += Arrays.binarySearch(data.sorted, key);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long branchlessLong(LongData data) {
+        long sum = 0;
+        for (long key : data.keys) {
+            sum += SortedSearch.searchInsert(data.sorted, key);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int[] branchlessBatchLong(LongData data) {
+        SortedSearch.searchInsert(data.sorted, data.keys, data.result);
+        return data.result;
+    }
+
+    @Benchmark
+    public long eytzingerLong(LongData data) {
+        long sum = 0;
+        for (long key : data.keys) {
+            sum += data.eytzinger.searchInsert(key);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int[] eytzingerBatchLong(LongData data) {
+        data.eytzinger.searchInsert(data.keys, data.result);
+        return data.result;
+    }
+}
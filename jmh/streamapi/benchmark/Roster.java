@@ -0,0 +1,28 @@
+package streamapi.benchmark;
+
+import streamapi.Specialist;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Набор данных бенчмарка одного размера и его представления для операций над несколькими списками
+ */
+class Roster {
+    private static final int NESTED_LIST_SIZE = 1_000;
+
+    final List<Specialist> all;
+    final List<Specialist> firstHalf;
+    final List<Specialist> secondHalf;
+    final List<List<Specialist>> nested;
+
+    Roster(int size) {
+        this.all = SpecialistGenerator.generate(size, 42);
+        this.firstHalf = all.subList(0, size / 2);
+        this.secondHalf = all.subList(size / 2, size);
+        this.nested = new ArrayList<>();
+        for (int from = 0; from < size; from += NESTED_LIST_SIZE) {
+            nested.add(all.subList(from, Math.min(size, from + NESTED_LIST_SIZE)));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package streamapi.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import streamapi.SalaryAggregations;
+import streamapi.Specialist;
+import streamapi.StreamAPI;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Агрегации {@link SalaryAggregations} для сравнения с конвейерами {@link StreamAPI}: в установившемся режиме
+ * gc.alloc.rate.norm должен быть равен нулю для всех операций, кроме topBySalary
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class SalaryAggregationsBenchmark {
+    @Param({"1000", "1000000", "50000000"})
+    public int size;
+
+    private List<Specialist> specialists;
+    private int[] scratch;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        specialists = new Roster(size).all;
+        scratch = new int[size];
+    }
+
+    @Benchmark
+    public long totalSalary() {
+        return SalaryAggregations.totalSalary(specialists);
+    }
+
+    @Benchmark
+    public Specialist maxBySalary() {
+        return SalaryAggregations.maxBySalary(specialists);
+    }
+
+    @Benchmark
+    public Specialist minBySalary() {
+        return SalaryAggregations.minBySalary(specialists);
+    }
+
+    @Benchmark
+    public int percentile() {
+        return SalaryAggregations.percentile(specialists, 99, scratch);
+    }
+
+    @Benchmark
+    public List<Specialist> topBySalary() {
+        return SalaryAggregations.topBySalary(specialists, 10);
+    }
+}
@@ -0,0 +1,151 @@
+package streamapi.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import streamapi.ExecutionPlanner;
+import streamapi.Specialist;
+import streamapi.Speciality;
+import streamapi.StreamAPI;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк публичных операций {@link StreamAPI}, которые {@link ExecutionPlanner} может выполнить параллельно.
+ * Каждая операция измеряется в двух JVM с зафиксированным режимом планировщика: {@link Sequential}
+ * (streamapi.planner.mode=SEQUENTIAL) и {@link Parallel} (streamapi.planner.mode=COMMON_POOL), так что
+ * сравнение не зависит от выбора планировщика по размеру источника.
+ * Операции, которые планировщик всегда выполняет последовательно, измеряются в {@link StreamAPIOrderedBenchmark},
+ * печать - в {@link StreamAPIPrintBenchmark}.
+ * <p>
+ * Запуск: gradle jmh -PjmhArgs='StreamAPIBenchmark -p size=1000000', gc-профайлер показывает скорость
+ * выделения памяти. Для 50 млн специалистов каждая JVM запускается с -Xmx8g
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public abstract class StreamAPIBenchmark {
+    @Param({"1000", "1000000", "50000000"})
+    public int size;
+
+    private Roster roster;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        roster = new Roster(size);
+    }
+
+    @Benchmark
+    public List<Specialist> filterSpecialistsBySpeciality() {
+        return StreamAPI.filterSpecialistsBySpeciality(roster.all, Speciality.DEVELOPER);
+    }
+
+    @Benchmark
+    public List<Specialist> sortedSpecialistsByName() {
+        return StreamAPI.sortedSpecialistsByName(roster.all);
+    }
+
+    @Benchmark
+    public List<Specialist> sortedSpecialistsBySalaryDesc() {
+        return StreamAPI.sortedSpecialistsBySalaryDesc(roster.all);
+    }
+
+    @Benchmark
+    public List<Specialist> concatCombineSpecialists() {
+        return StreamAPI.concatCombineSpecialists(roster.firstHalf, roster.secondHalf);
+    }
+
+    @Benchmark
+    public List<Specialist> distinctGetUniqueSpecialists() {
+        return StreamAPI.distinctGetUniqueSpecialists(roster.all);
+    }
+
+    @Benchmark
+    public List<Specialist> limitElements() {
+        return StreamAPI.limitElements(roster.all);
+    }
+
+    @Benchmark
+    public List<String> mapElements() {
+        return StreamAPI.mapElements(roster.all);
+    }
+
+    @Benchmark
+    public List<Specialist> flatMapElements() {
+        return StreamAPI.flatMapElements(roster.nested);
+    }
+
+    @Benchmark
+    public List<Specialist> skipElements() {
+        return StreamAPI.skipElements(roster.all);
+    }
+
+    @Benchmark
+    public Specialist maxFindSpecialistWithMaxSalary() {
+        return StreamAPI.maxFindSpecialistWithMaxSalary(roster.all);
+    }
+
+    @Benchmark
+    public Specialist minFindSpecialistWithMinSalary() {
+        return StreamAPI.minFindSpecialistWithMinSalary(roster.all);
+    }
+
+    @Benchmark
+    public long countSpecialistWithSalaryOverMill() {
+        return StreamAPI.countSpecialistWithSalaryOverMill(roster.all);
+    }
+
+    @Benchmark
+    public boolean allMatchIsAllHaveSalaryOver900k() {
+        return StreamAPI.allMatchIsAllHaveSalaryOver900k(roster.all);
+    }
+
+    @Benchmark
+    public boolean anyMatchIsTeamHasBusinessAnalyst() {
+        return StreamAPI.anyMatchIsTeamHasBusinessAnalyst(roster.all);
+    }
+
+    @Benchmark
+    public Optional<Specialist> findAnySpecialist() {
+        return StreamAPI.findAnySpecialist(roster.all);
+    }
+
+    @Benchmark
+    public boolean noneMatchCheck() {
+        return StreamAPI.noneMatchCheck(roster.all);
+    }
+
+    @Benchmark
+    public Object[] toArraySpecialists() {
+        return StreamAPI.toArraySpecialists(roster.all);
+    }
+
+    @Benchmark
+    public Optional<Integer> reduceElemetsToTotalSalary() {
+        return StreamAPI.reduceElemetsToTotalSalary(roster.all);
+    }
+
+    @Benchmark
+    public Map<Speciality, List<Specialist>> groupBySpeciality() {
+        return StreamAPI.groupBySpeciality(roster.all);
+    }
+
+    @Benchmark
+    public Map<Boolean, List<Specialist>> groupBySalaryOver1MillOrNot() {
+        return StreamAPI.groupBySalaryOver1MillOrNot(roster.all);
+    }
+
+    @Benchmark
+    public IntSummaryStatistics getIntSummaryStatistics() {
+        return StreamAPI.getIntSummaryStatistics(roster.all);
+    }
+
+    @Fork(value = 2, jvmArgsAppend = {"-Xmx8g", "-Dstreamapi.planner.mode=SEQUENTIAL"})
+    public static class Sequential extends StreamAPIBenchmark {
+    }
+
+    @Fork(value = 2, jvmArgsAppend = {"-Xmx8g", "-Dstreamapi.planner.mode=COMMON_POOL"})
+    public static class Parallel extends StreamAPIBenchmark {
+    }
+}
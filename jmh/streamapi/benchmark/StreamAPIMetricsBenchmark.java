@@ -0,0 +1,74 @@
+package streamapi.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import streamapi.Specialist;
+import streamapi.StreamAPI;
+import streamapi.StreamAPIMetrics;
+
+import java.util.IntSummaryStatistics;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Стоимость {@link StreamAPIMetrics}: операции {@link StreamAPI} с выключенным и включенным сбором метрик
+ * и тот же конвейер на стриме без метрик и планировщика. Выключенный сбор не должен отличаться от стрима
+ * в пределах погрешности. Планировщик зафиксирован в последовательном режиме, чтобы сравнивались только метрики
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = "-Dstreamapi.planner.mode=SEQUENTIAL")
+@State(Scope.Benchmark)
+public class StreamAPIMetricsBenchmark {
+    @Param({"100", "10000"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean metrics;
+
+    private Roster roster;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        roster = new Roster(size);
+        StreamAPIMetrics.setEnabled(metrics);
+    }
+
+    @TearDown(Level.Trial)
+    public void disable() {
+        StreamAPIMetrics.setEnabled(false);
+        StreamAPIMetrics.reset();
+    }
+
+    @Benchmark
+    public List<String> mapElements() {
+        return StreamAPI.mapElements(roster.all);
+    }
+
+    @Benchmark
+    public List<String> mapElementsStream() {
+        return roster.all.stream().map(s -> s.getName()).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public long countSpecialistWithSalaryOverMill() {
+        return StreamAPI.countSpecialistWithSalaryOverMill(roster.all);
+    }
+
+    @Benchmark
+    public long countSpecialistWithSalaryOverMillStream() {
+        return roster.all.stream().filter(s -> s.getSalary() >= 1000000).count();
+    }
+
+    @Benchmark
+    public IntSummaryStatistics getIntSummaryStatistics() {
+        return StreamAPI.getIntSummaryStatistics(roster.all);
+    }
+
+    @Benchmark
+    public IntSummaryStatistics getIntSummaryStatisticsStream() {
+        return roster.all.stream().mapToInt(Specialist::getSalary).summaryStatistics();
+    }
+}
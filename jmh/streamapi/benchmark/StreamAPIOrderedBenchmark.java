@@ -0,0 +1,76 @@
+package streamapi.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import streamapi.ExecutionPlanner;
+import streamapi.Specialist;
+import streamapi.StreamAPI;
+import streamapi.StreamOperation;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Бенчмарк операций {@link StreamAPI}, которые {@link ExecutionPlanner} всегда выполняет последовательно
+ * ({@link StreamOperation#isOrderSensitive()}). Параллельный вариант - тот же конвейер на parallelStream
+ * в обход планировщика, он показывает, во что обошлось бы распараллеливание.
+ * peekElements меняет зарплаты набора данных, поэтому каждая операция запускается в отдельной JVM
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class StreamAPIOrderedBenchmark {
+    @Param({"1000", "1000000", "50000000"})
+    public int size;
+
+    private Roster roster;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        roster = new Roster(size);
+    }
+
+    @Benchmark
+    public List<Specialist> dropWhileTest() {
+        return StreamAPI.dropWhileTest(roster.all);
+    }
+
+    @Benchmark
+    public List<Specialist> dropWhileTestParallelStream() {
+        return roster.all.parallelStream().dropWhile(s -> s.getSalary() >= 1000000).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Specialist> takeWhileElements() {
+        return StreamAPI.takeWhileElements(roster.all);
+    }
+
+    @Benchmark
+    public List<Specialist> takeWhileElementsParallelStream() {
+        return roster.all.parallelStream().takeWhile(s -> s.getSalary() >= 1000000).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public Optional<Specialist> findFirstSpecialist() {
+        return StreamAPI.findFirstSpecialist(roster.all);
+    }
+
+    @Benchmark
+    public Optional<Specialist> findFirstSpecialistParallelStream() {
+        return roster.all.parallelStream().findFirst();
+    }
+
+    @Benchmark
+    public List<Specialist> peekElements() {
+        return StreamAPI.peekElements(roster.all);
+    }
+
+    @Benchmark
+    public List<Specialist> peekElementsParallelStream() {
+        return roster.all.parallelStream().peek(s -> s.setSalary(1000000)).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,58 @@
+package streamapi.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import streamapi.Specialist;
+import streamapi.StreamAPI;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк операций печати {@link StreamAPI}, вывод перенаправляется в пустой поток.
+ * Режим выполнения задан в самих операциях: forEachPrintSpecialists печатает последовательно,
+ * parallelAndForEachOrderedPrintSpecialists - параллельно с forEachOrdered, последовательный вариант
+ * последнего - тот же конвейер на stream(). Размер ограничен 1 млн: forEachPrintSpecialists
+ * печатает список одной строкой, для 50 млн специалистов она не помещается в String
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class StreamAPIPrintBenchmark {
+    @Param({"1000", "1000000"})
+    public int size;
+
+    private List<Specialist> specialists;
+    private PrintStream out;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        specialists = new Roster(size).all;
+        out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void restoreOut() {
+        System.setOut(out);
+    }
+
+    @Benchmark
+    public void forEachPrintSpecialists() {
+        StreamAPI.forEachPrintSpecialists(specialists);
+    }
+
+    @Benchmark
+    public void parallelAndForEachOrderedPrintSpecialists() {
+        StreamAPI.parallelAndForEachOrderedPrintSpecialists(specialists);
+    }
+
+    @Benchmark
+    public void forEachOrderedPrintSpecialistsSequential() {
+        specialists.stream().forEachOrdered(System.out::println);
+    }
+}
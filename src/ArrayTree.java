@@ -0,0 +1,324 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.function.IntConsumer;
+
+/**
+ * Дерево в трех колонках int вместо объектов {@link SameTree.TreeNode}: значение, номер левого и номер правого
+ * ребенка (-1 - нет ребенка). Миллион узлов занимает 12 МБ без заголовков объектов и без работы для сборщика мусора.
+ * <p>
+ * Дерево из {@link #of(SameTree.TreeNode)} нумеруется в прямом порядке обхода (узел, левое поддерево, правое):
+ * левый ребенок узла i всегда i + 1, обход в глубину идет по колонкам подряд. Два дерева в прямом порядке одинаковы
+ * тогда и только тогда, когда совпадают их колонки, поэтому {@link #isSameTree(ArrayTree, ArrayTree)} сравнивает их
+ * через {@link IntBuffer#mismatch(IntBuffer)} без обхода.
+ * <p>
+ * Формат файла (little-endian):
+ * <ul>
+ *     <li>заголовок 32 байта: сигнатура TREE, версия, флаги (1 - прямой порядок), количество узлов, номер корня</li>
+ *     <li>колонки значений, левых и правых детей по 4 байта на узел</li>
+ * </ul>
+ * {@link #map(Path)} отображает колонки в память без чтения файла, {@link #load(Path)} читает их в кучу.
+ * Содержимое файла не проверяется, номера детей должны образовывать дерево
+ */
+public class ArrayTree {
+    private static final int MAGIC = 0x45455254; // "TREE"
+    private static final int VERSION = 1;
+    private static final int PRE_ORDER = 1;
+    private static final int HEADER_SIZE = 32;
+    // каждая колонка отображается одним буфером, размер которого ограничен 2 ГБ
+    private static final int MAX_SIZE = Integer.MAX_VALUE / Integer.BYTES;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final IntBuffer val;
+    private final IntBuffer left;
+    private final IntBuffer right;
+    private final int root;
+    private final boolean preOrder;
+
+    private ArrayTree(IntBuffer val, IntBuffer left, IntBuffer right, int root, boolean preOrder) {
+        this.val = val;
+        this.left = left;
+        this.right = right;
+        this.root = root;
+        this.preOrder = preOrder;
+    }
+
+    public static void main(String[] args) throws IOException {
+        SameTree.TreeNode p = new SameTree.TreeNode(1, new SameTree.TreeNode(2), new SameTree.TreeNode(3));
+        Path file = Files.createTempFile("tree", ".bin");
+        try {
+            of(p).write(file);
+            System.out.println(isSameTree(of(p), map(file)));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Кодирование дерева в прямом порядке обхода, без рекурсии
+     *
+     * @param root корень или null для пустого дерева
+     */
+    public static ArrayTree of(SameTree.TreeNode root) {
+        int size = count(root);
+        int[] val = new int[size];
+        int[] left = new int[size];
+        int[] right = new int[size];
+        Arrays.fill(left, -1);
+        Arrays.fill(right, -1);
+        // в стеке правые дети, которые обходятся после левого поддерева, и номера их родителей
+        SameTree.TreeNode[] stack = new SameTree.TreeNode[16];
+        int[] parents = new int[16];
+        int top = 0;
+        int next = 0;
+        SameTree.TreeNode node = root;
+        int parent = -1;
+        while (node != null) {
+            int id = next++;
+            val[id] = node.val;
+            if (parent >= 0) right[parent] = id;
+            if (node.right != null) {
+                if (top == stack.length) {
+                    stack = Arrays.copyOf(stack, top * 2);
+                    parents = Arrays.copyOf(parents, top * 2);
+                }
+                stack[top] = node.right;
+                parents[top++] = id;
+            }
+            if (node.left != null) {
+                left[id] = id + 1;
+                node = node.left;
+                parent = -1;
+            } else if (top > 0) {
+                node = stack[--top];
+                parent = parents[top];
+                stack[top] = null;
+            } else {
+                node = null;
+            }
+        }
+        return new ArrayTree(IntBuffer.wrap(val), IntBuffer.wrap(left), IntBuffer.wrap(right), size == 0 ? -1 : 0, true);
+    }
+
+    /**
+     * Дерево из готовых колонок без копирования, порядок узлов произвольный
+     *
+     * @param root номер корня, -1 - пустое дерево
+     */
+    public static ArrayTree wrap(int[] val, int[] left, int[] right, int root) {
+        if (val.length != left.length || val.length != right.length) {
+            throw new IllegalArgumentException("columns must have the same length");
+        }
+        if (root < -1 || root >= val.length) throw new IllegalArgumentException("root out of range: " + root);
+        return new ArrayTree(IntBuffer.wrap(val), IntBuffer.wrap(left), IntBuffer.wrap(right), root, false);
+    }
+
+    /**
+     * Открытие файла: колонки отображаются в память только для чтения и читаются при обращении
+     */
+    public static ArrayTree map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = readHeader(channel, path);
+            int flags = header.getInt(8);
+            int size = header.getInt(12);
+            int root = header.getInt(16);
+            long column = (long) size * Integer.BYTES;
+            // отображение остается действительным после закрытия канала
+            return new ArrayTree(
+                    map(channel, HEADER_SIZE, column),
+                    map(channel, HEADER_SIZE + column, column),
+                    map(channel, HEADER_SIZE + 2 * column, column),
+                    root, (flags & PRE_ORDER) != 0);
+        }
+    }
+
+    /**
+     * Чтение файла в кучу
+     */
+    public static ArrayTree load(Path path) throws IOException {
+        ArrayTree mapped = map(path);
+        return new ArrayTree(copy(mapped.val), copy(mapped.left), copy(mapped.right), mapped.root, mapped.preOrder);
+    }
+
+    /**
+     * Запись в файл, существующий файл перезаписывается
+     */
+    public void write(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(preOrder ? PRE_ORDER : 0).putInt(size()).putInt(root);
+            header.position(HEADER_SIZE);
+            long position = flush(channel, header, 0);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            for (IntBuffer column : new IntBuffer[]{val, left, right}) {
+                for (int i = 0; i < column.limit(); i++) {
+                    if (!buffer.hasRemaining()) position += flush(channel, buffer, position);
+                    buffer.putInt(column.get(i));
+                }
+            }
+            flush(channel, buffer, position);
+        }
+    }
+
+    /**
+     * Восстановление дерева из объектов TreeNode, без рекурсии
+     */
+    public SameTree.TreeNode toTreeNode() {
+        if (root < 0) return null;
+        SameTree.TreeNode[] nodes = new SameTree.TreeNode[size()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new SameTree.TreeNode(val.get(i));
+        }
+        for (int i = 0; i < nodes.length; i++) {
+            int l = left.get(i);
+            int r = right.get(i);
+            if (l >= 0) nodes[i].left = nodes[l];
+            if (r >= 0) nodes[i].right = nodes[r];
+        }
+        return nodes[root];
+    }
+
+    public int size() {
+        return val.limit();
+    }
+
+    public int root() {
+        return root;
+    }
+
+    public int val(int node) {
+        return val.get(node);
+    }
+
+    /**
+     * @return номер левого ребенка или -1
+     */
+    public int left(int node) {
+        return left.get(node);
+    }
+
+    /**
+     * @return номер правого ребенка или -1
+     */
+    public int right(int node) {
+        return right.get(node);
+    }
+
+    /**
+     * Обход значений в прямом порядке, без рекурсии
+     */
+    public void forEachPreOrder(IntConsumer action) {
+        if (preOrder) {
+            for (int i = 0; i < size(); i++) {
+                action.accept(val.get(i));
+            }
+            return;
+        }
+        int[] stack = new int[16];
+        int top = 0;
+        if (root >= 0) stack[top++] = root;
+        while (top > 0) {
+            int node = stack[--top];
+            action.accept(val.get(node));
+            if (top + 2 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+            if (right.get(node) >= 0) stack[top++] = right.get(node);
+            if (left.get(node) >= 0) stack[top++] = left.get(node);
+        }
+    }
+
+    /**
+     * Аналог {@link SameTree#isSameTree(SameTree.TreeNode, SameTree.TreeNode)} над закодированными деревьями.
+     * Деревья в прямом порядке сравниваются по колонкам, остальные - обходом на стеке номеров
+     */
+    public static boolean isSameTree(ArrayTree p, ArrayTree q) {
+        if (p.preOrder && q.preOrder) {
+            return p.size() == q.size()
+                    && p.val.mismatch(q.val) < 0 && p.left.mismatch(q.left) < 0 && p.right.mismatch(q.right) < 0;
+        }
+        if (p.root < 0 || q.root < 0) return p.root == q.root;
+        // пары номеров: узел p, узел q
+        int[] stack = new int[32];
+        int top = 0;
+        stack[top++] = p.root;
+        stack[top++] = q.root;
+        while (top > 0) {
+            int nodeQ = stack[--top];
+            int nodeP = stack[--top];
+            if (p.val.get(nodeP) != q.val.get(nodeQ)) return false;
+            int leftP = p.left.get(nodeP);
+            int leftQ = q.left.get(nodeQ);
+            int rightP = p.right.get(nodeP);
+            int rightQ = q.right.get(nodeQ);
+            if ((leftP < 0) != (leftQ < 0) || (rightP < 0) != (rightQ < 0)) return false;
+            if (top + 4 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+            if (rightP >= 0) {
+                stack[top++] = rightP;
+                stack[top++] = rightQ;
+            }
+            if (leftP >= 0) {
+                stack[top++] = leftP;
+                stack[top++] = leftQ;
+            }
+        }
+        return true;
+    }
+
+    private static int count(SameTree.TreeNode root) {
+        long count = 0;
+        Deque<SameTree.TreeNode> stack = new ArrayDeque<>();
+        if (root != null) stack.push(root);
+        while (!stack.isEmpty()) {
+            SameTree.TreeNode node = stack.pop();
+            if (++count > MAX_SIZE) throw new IllegalArgumentException("tree has more than " + MAX_SIZE + " nodes");
+            if (node.right != null) stack.push(node.right);
+            if (node.left != null) stack.push(node.left);
+        }
+        return (int) count;
+    }
+
+    private static ByteBuffer readHeader(FileChannel channel, Path path) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) throw new IOException("truncated header: " + path);
+        }
+        if (header.getInt(0) != MAGIC) throw new IOException("not a tree file: " + path);
+        int version = header.getInt(4);
+        if (version != VERSION) throw new IOException("unsupported tree file version " + version + ": " + path);
+        int size = header.getInt(12);
+        int root = header.getInt(16);
+        if (size < 0 || size > MAX_SIZE || root < -1 || root >= size || (size > 0) == (root < 0)
+                || HEADER_SIZE + 3L * size * Integer.BYTES > channel.size()) {
+            throw new IOException("corrupted tree file: " + path);
+        }
+        return header;
+    }
+
+    private static IntBuffer map(FileChannel channel, long position, long length) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, length).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    }
+
+    private static IntBuffer copy(IntBuffer column) {
+        IntBuffer copy = IntBuffer.allocate(column.limit());
+        copy.put(column.duplicate());
+        return copy.flip();
+    }
+
+    private static long flush(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        buffer.flip();
+        long written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        buffer.clear();
+        return written;
+    }
+}
@@ -0,0 +1,138 @@
+import java.util.Arrays;
+
+/**
+ * Отображение int в int с открытой адресацией (линейное пробирование) без упаковки ключей и значений,
+ * замена HashMap&lt;Integer, Integer&gt;. Ключи и значения лежат в двух массивах, таблица заполняется
+ * не больше чем наполовину. Ключ 0 означает пустую ячейку, поэтому его значение хранится отдельно.
+ * Удаление не поддерживается, класс не потокобезопасен, но после заполнения его можно читать из многих потоков
+ */
+public class IntIntHashMap {
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final int FREE = 0;
+
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private boolean hasZeroKey;
+    private int zeroValue;
+
+    public IntIntHashMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize ожидаемое количество ключей
+     */
+    public IntIntHashMap(int expectedSize) {
+        int capacity = tableSizeFor(Math.max(4, (long) expectedSize * 2));
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * @return значение ключа или defaultValue, если ключа нет
+     */
+    public int get(int key, int defaultValue) {
+        if (key == FREE) return hasZeroKey ? zeroValue : defaultValue;
+        for (int index = hash(key) & mask; ; index = (index + 1) & mask) {
+            int current = keys[index];
+            if (current == key) return values[index];
+            if (current == FREE) return defaultValue;
+        }
+    }
+
+    public boolean containsKey(int key) {
+        if (key == FREE) return hasZeroKey;
+        for (int index = hash(key) & mask; ; index = (index + 1) & mask) {
+            int current = keys[index];
+            if (current == key) return true;
+            if (current == FREE) return false;
+        }
+    }
+
+    /**
+     * @return предыдущее значение или defaultValue, если ключа не было
+     */
+    public int put(int key, int value, int defaultValue) {
+        return insert(key, value, defaultValue, true);
+    }
+
+    /**
+     * @return текущее значение или defaultValue, если ключа не было и значение добавлено
+     */
+    public int putIfAbsent(int key, int value, int defaultValue) {
+        return insert(key, value, defaultValue, false);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        hasZeroKey = false;
+        size = 0;
+    }
+
+    /**
+     * Перемешивание битов ключа финализатором MurmurHash3, иначе последовательные ключи занимают соседние ячейки
+     */
+    static int hash(int key) {
+        int h = key;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private int insert(int key, int value, int defaultValue, boolean replace) {
+        if (key == FREE) {
+            if (hasZeroKey) {
+                int old = zeroValue;
+                if (replace) zeroValue = value;
+                return old;
+            }
+            hasZeroKey = true;
+            zeroValue = value;
+            size++;
+            return defaultValue;
+        }
+        int index = hash(key) & mask;
+        for (int current; (current = keys[index]) != FREE; index = (index + 1) & mask) {
+            if (current == key) {
+                int old = values[index];
+                if (replace) values[index] = value;
+                return old;
+            }
+        }
+        keys[index] = key;
+        values[index] = value;
+        if (++size > keys.length >>> 1) grow();
+        return defaultValue;
+    }
+
+    private void grow() {
+        if (keys.length == MAX_CAPACITY) throw new IllegalStateException("map is full");
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == FREE) continue;
+            int index = hash(oldKeys[i]) & mask;
+            while (keys[index] != FREE) index = (index + 1) & mask;
+            keys[index] = oldKeys[i];
+            values[index] = oldValues[i];
+        }
+    }
+
+    private static int tableSizeFor(long size) {
+        if (size >= MAX_CAPACITY) return MAX_CAPACITY;
+        return Integer.highestOneBit((int) size - 1) << 1;
+    }
+}
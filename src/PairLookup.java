@@ -0,0 +1,129 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * Поиск пар элементов массива с заданной суммой (twoSum из {@link Main}) для многих сумм.
+ * <p>
+ * Индекс - {@link IntIntHashMap} из значения в номер его первого вхождения, строится один раз в конструкторе.
+ * Ответ для суммы target - пара номеров [i, j], i &lt; j, с наименьшим j, а для него с наименьшим i,
+ * как в однопроходном {@link #twoSum(int[], int)}. Суммы считаются в long, переполнение int не дает ложных пар.
+ * <p>
+ * {@link #find(int[])} отвечает на все суммы за один проход по массиву: для каждого элемента проверяются
+ * только еще не найденные суммы, проход заканчивается, когда найдены все. {@link #findParallel(int[])}
+ * делит проход на части по {@value #CHUNK_SIZE} элементов и пропускает в части суммы, для которых
+ * уже найдена пара в более ранней части
+ */
+public class PairLookup {
+    private static final int CHUNK_SIZE = 1 << 16;
+    private static final int ABSENT = -1;
+
+    private final int[] values;
+    private final IntIntHashMap firstIndex;
+
+    /**
+     * @param values массив, не должен изменяться после создания индекса
+     */
+    public PairLookup(int[] values) {
+        this.values = values;
+        this.firstIndex = new IntIntHashMap(values.length);
+        for (int i = 0; i < values.length; i++) {
+            firstIndex.putIfAbsent(values[i], i, ABSENT);
+        }
+    }
+
+    public static void main(String[] args) {
+        int[] nums = {3, 2, 4};
+        System.out.println(Arrays.toString(twoSum(nums, 6)));
+        System.out.println(Arrays.deepToString(new PairLookup(nums).find(new int[]{6, 5, 7, 100})));
+    }
+
+    /**
+     * Один проход без индекса
+     *
+     * @return номера пары [i, j] или null, если пары нет
+     */
+    public static int[] twoSum(int[] nums, int target) {
+        IntIntHashMap seen = new IntIntHashMap(nums.length);
+        for (int j = 0; j < nums.length; j++) {
+            long complement = (long) target - nums[j];
+            if (complement == (int) complement) {
+                int i = seen.get((int) complement, ABSENT);
+                if (i != ABSENT) return new int[]{i, j};
+            }
+            seen.putIfAbsent(nums[j], j, ABSENT);
+        }
+        return null;
+    }
+
+    /**
+     * @return номера пары [i, j] или null, если пары нет
+     */
+    public int[] find(int target) {
+        return find(new int[]{target})[0];
+    }
+
+    /**
+     * @param targets суммы
+     * @return для каждой суммы номера пары [i, j] или null
+     */
+    public int[][] find(int[] targets) {
+        int[][] result = new int[targets.length][];
+        // номера еще не найденных сумм, найденная меняется местами с последней
+        int[] pending = IntStream.range(0, targets.length).toArray();
+        int remaining = pending.length;
+        for (int j = 0; j < values.length && remaining > 0; j++) {
+            for (int k = 0; k < remaining; ) {
+                int i = partner(targets[pending[k]], j);
+                if (i != ABSENT) {
+                    result[pending[k]] = new int[]{i, j};
+                    pending[k] = pending[--remaining];
+                } else {
+                    k++;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * То же, что {@link #find(int[])}, проход по частям массива в общем ForkJoinPool
+     */
+    public int[][] findParallel(int[] targets) {
+        int chunks = (values.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        // наименьший найденный j для каждой суммы
+        AtomicIntegerArray best = new AtomicIntegerArray(targets.length);
+        for (int k = 0; k < targets.length; k++) {
+            best.set(k, Integer.MAX_VALUE);
+        }
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            int start = chunk * CHUNK_SIZE;
+            int end = Math.min(values.length, start + CHUNK_SIZE);
+            for (int k = 0; k < targets.length; k++) {
+                if (best.get(k) < start) continue;
+                for (int j = start; j < end; j++) {
+                    if (partner(targets[k], j) != ABSENT) {
+                        best.accumulateAndGet(k, j, Math::min);
+                        break;
+                    }
+                }
+            }
+        });
+        int[][] result = new int[targets.length][];
+        for (int k = 0; k < targets.length; k++) {
+            int j = best.get(k);
+            if (j != Integer.MAX_VALUE) result[k] = new int[]{partner(targets[k], j), j};
+        }
+        return result;
+    }
+
+    /**
+     * @return наименьший номер i &lt; j, для которого values[i] + values[j] == target, или ABSENT
+     */
+    private int partner(int target, int j) {
+        long complement = (long) target - values[j];
+        if (complement != (int) complement) return ABSENT;
+        int i = firstIndex.get((int) complement, ABSENT);
+        return i < j ? i : ABSENT;
+    }
+}
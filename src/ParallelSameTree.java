@@ -0,0 +1,124 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Параллельное сравнение деревьев {@link SameTree.TreeNode} в {@link ForkJoinPool}.
+ * <p>
+ * Каждая задача обходит пары узлов итеративно на своем стеке (ArrayDeque), поэтому вырожденные деревья-списки
+ * не переполняют стек потока, как рекурсивный вариант option 1 в {@link SameTree#isSameTree}. Размер поддеревьев
+ * заранее неизвестен, поэтому вместо порога по размеру задача отдает работу другим потокам сама: каждые
+ * {@value #CHECK_INTERVAL} узлов, если в пуле мало задач для кражи, самая нижняя отложенная пара (ближайшая к корню,
+ * обычно самое большое поддерево) выносится в новую задачу. Малые деревья так и остаются в одной последовательной
+ * задаче, деревья-списки тоже: у них в стеке не больше одной пары.
+ * <p>
+ * Первое несовпадение выставляет общий флаг отмены, остальные задачи проверяют его с тем же интервалом и завершаются.
+ * Задача, которая завершается раньше времени, отменяет свои вынесенные задачи: еще не начатые не выполняются
+ * совсем, а начатые завершаются по флагу
+ */
+public class ParallelSameTree {
+    private static final int CHECK_INTERVAL = 1024;
+    // задача отдает работу, пока в ее очереди меньше задач для кражи
+    private static final int SURPLUS_THRESHOLD = 2;
+
+    private final ForkJoinPool pool;
+
+    public ParallelSameTree() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelSameTree(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public static void main(String[] args) {
+        SameTree.TreeNode p = new SameTree.TreeNode(1, new SameTree.TreeNode(2), new SameTree.TreeNode(3));
+        SameTree.TreeNode q = new SameTree.TreeNode(1, new SameTree.TreeNode(2), new SameTree.TreeNode(3));
+
+        System.out.println(new ParallelSameTree().isSameTree(p, q));
+    }
+
+    /**
+     * @return то же, что {@link SameTree#isSameTree(SameTree.TreeNode, SameTree.TreeNode)}
+     */
+    public boolean isSameTree(SameTree.TreeNode p, SameTree.TreeNode q) {
+        if (p == null && q == null) return true;
+        if (p == null || q == null) return false;
+        return pool.invoke(new Compare(p, q, new AtomicBoolean()));
+    }
+
+    private static class Compare extends RecursiveTask<Boolean> {
+        private static final long serialVersionUID = 1L;
+
+        private final SameTree.TreeNode p;
+        private final SameTree.TreeNode q;
+        private final AtomicBoolean mismatch;
+
+        Compare(SameTree.TreeNode p, SameTree.TreeNode q, AtomicBoolean mismatch) {
+            this.p = p;
+            this.q = q;
+            this.mismatch = mismatch;
+        }
+
+        @Override
+        protected Boolean compute() {
+            // пары лежат подряд: сверху p, под ним q
+            Deque<SameTree.TreeNode> stack = new ArrayDeque<>();
+            stack.push(q);
+            stack.push(p);
+            List<Compare> forked = new ArrayList<>();
+            int visited = 0;
+            while (!stack.isEmpty()) {
+                if (++visited == CHECK_INTERVAL) {
+                    visited = 0;
+                    if (mismatch.get()) return cancel(forked, 0);
+                    if (stack.size() > 2 && getSurplusQueuedTaskCount() < SURPLUS_THRESHOLD) {
+                        SameTree.TreeNode bottomQ = stack.pollLast();
+                        SameTree.TreeNode bottomP = stack.pollLast();
+                        Compare task = new Compare(bottomP, bottomQ, mismatch);
+                        task.fork();
+                        forked.add(task);
+                    }
+                }
+                SameTree.TreeNode tmpP = stack.pop();
+                SameTree.TreeNode tmpQ = stack.pop();
+                if (tmpP.val != tmpQ.val
+                        || !push(stack, tmpP.right, tmpQ.right)
+                        || !push(stack, tmpP.left, tmpQ.left)) {
+                    mismatch.set(true);
+                    return cancel(forked, 0);
+                }
+            }
+            for (int i = 0; i < forked.size(); i++) {
+                if (!forked.get(i).join()) return cancel(forked, i + 1);
+            }
+            return !mismatch.get();
+        }
+
+        /**
+         * Отмена вынесенных задач, начиная с from, без ожидания: начатые задачи увидят флаг несовпадения
+         *
+         * @return false - результат сравнения
+         */
+        private static boolean cancel(List<Compare> forked, int from) {
+            for (int i = from; i < forked.size(); i++) {
+                forked.get(i).cancel(false);
+            }
+            return false;
+        }
+
+        /**
+         * @return false, если есть только один из узлов
+         */
+        private static boolean push(Deque<SameTree.TreeNode> stack, SameTree.TreeNode p, SameTree.TreeNode q) {
+            if (p == null || q == null) return p == q;
+            stack.push(q);
+            stack.push(p);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Наибольший общий префикс строк (func из {@link Main}) без посимвольного построения результата:
+ * считается длина префикса, результат - одна подстрока первой строки.
+ * <p>
+ * Общий префикс всех строк - префикс первой строки, поэтому каждая строка сравнивается только с ней, и граница
+ * только уменьшается. Параллельный вариант делит массив на части по {@value #CHUNK_SIZE} строк, части сравниваются
+ * в общем ForkJoinPool с общей текущей границей и заканчиваются, как только граница становится нулевой.
+ * <p>
+ * Для префиксов множества, которое пополняется по одной строке, см. {@link PrefixTrie}
+ */
+public class PrefixEngine {
+    private static final int CHUNK_SIZE = 4096;
+
+    private PrefixEngine() {
+    }
+
+    public static void main(String[] args) {
+        String[] strs = {"flower", "flow", "floight"};
+        String[] strs1 = {"ab", "a"};
+        System.out.println(longestCommonPrefix(strs));
+        System.out.println(longestCommonPrefixParallel(strs1));
+    }
+
+    /**
+     * @return наибольший общий префикс, пустая строка для пустого массива
+     */
+    public static String longestCommonPrefix(String[] strs) {
+        if (strs.length == 0) return "";
+        String first = strs[0];
+        int length = first.length();
+        for (int i = 1; i < strs.length && length > 0; i++) {
+            length = commonLength(first, strs[i], length);
+        }
+        return first.substring(0, length);
+    }
+
+    /**
+     * @return то же, что {@link #longestCommonPrefix(String[])}
+     */
+    public static String longestCommonPrefixParallel(String[] strs) {
+        if (strs.length == 0) return "";
+        String first = strs[0];
+        AtomicInteger bound = new AtomicInteger(first.length());
+        int chunks = (strs.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            int end = Math.min(strs.length, (chunk + 1) * CHUNK_SIZE);
+            int length = bound.get();
+            for (int i = chunk * CHUNK_SIZE; i < end && length > 0; i++) {
+                length = commonLength(first, strs[i], length);
+                // граница других частей учитывается раз в строку, чтение volatile дешевле сравнения строк
+                length = Math.min(length, bound.get());
+            }
+            bound.accumulateAndGet(length, Math::min);
+        });
+        return first.substring(0, bound.get());
+    }
+
+    /**
+     * @return длина общего префикса строк, не больше limit
+     */
+    static int commonLength(CharSequence a, CharSequence b, int limit) {
+        int length = Math.min(limit, Math.min(a.length(), b.length()));
+        for (int i = 0; i < length; i++) {
+            if (a.charAt(i) != b.charAt(i)) return i;
+        }
+        return length;
+    }
+}
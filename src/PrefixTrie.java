@@ -0,0 +1,205 @@
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.function.Consumer;
+
+/**
+ * Сжатое префиксное дерево (radix tree) множества строк, пополняемое по одной строке.
+ * <p>
+ * Ребро хранит не копию подстроки, а ссылку на добавленную строку и границы: путь от корня до узла - это
+ * source.substring(0, end) любого узла, поэтому строки не копируются ни при добавлении, ни при выдаче.
+ * Дети узла упорядочены по первому символу и ищутся двоичным поиском. Каждый узел хранит количество строк
+ * в своем поддереве, поэтому запросы по префиксу P выполняются за O(|P|) плюс размер ответа, без обхода
+ * всего множества. Класс не потокобезопасен
+ */
+public class PrefixTrie {
+    private final Node root = new Node("", 0, 0);
+
+    public static void main(String[] args) {
+        PrefixTrie trie = new PrefixTrie();
+        for (String key : new String[]{"flower", "flow", "floight"}) {
+            trie.add(key);
+        }
+        System.out.println(trie.longestCommonPrefix());
+        System.out.println(trie.longestCommonPrefix("flo"));
+        System.out.println(trie.longestCommonPrefix("flow"));
+        trie.forEachWithPrefix("flow", System.out::println);
+    }
+
+    /**
+     * @return true, если строки не было в множестве
+     */
+    public boolean add(String key) {
+        Node[] path = new Node[8];
+        int depth = 0;
+        Node node = root;
+        int i = 0;
+        while (true) {
+            if (depth == path.length) path = Arrays.copyOf(path, depth * 2);
+            path[depth++] = node;
+            if (i == key.length()) {
+                if (node.terminal) return false;
+                node.terminal = true;
+                break;
+            }
+            int index = node.indexOf(key.charAt(i));
+            if (index < 0) {
+                Node leaf = node.insertChild(-index - 1, new Node(key, i, key.length()));
+                leaf.terminal = true;
+                if (depth == path.length) path = Arrays.copyOf(path, depth * 2);
+                path[depth++] = leaf;
+                break;
+            }
+            Node child = node.children[index];
+            int matched = child.match(key, i);
+            if (matched < child.end - child.start) {
+                // строка расходится с ребром посередине, ребро делится промежуточным узлом
+                Node middle = new Node(child.source, child.start, child.start + matched);
+                middle.count = child.count;
+                child.start += matched;
+                middle.insertChild(0, child);
+                node.children[index] = middle;
+                child = middle;
+            }
+            node = child;
+            i += matched;
+        }
+        for (int d = 0; d < depth; d++) {
+            path[d].count++;
+        }
+        return true;
+    }
+
+    public int size() {
+        return root.count;
+    }
+
+    public boolean contains(String key) {
+        Node node = locus(key);
+        return node != null && node.terminal && node.end == key.length();
+    }
+
+    /**
+     * @return количество строк, начинающихся с prefix
+     */
+    public int countWithPrefix(String prefix) {
+        Node node = locus(prefix);
+        return node == null ? 0 : node.count;
+    }
+
+    /**
+     * Строки с префиксом prefix в лексикографическом порядке (по char)
+     */
+    public void forEachWithPrefix(String prefix, Consumer<? super String> action) {
+        Node start = locus(prefix);
+        if (start == null) return;
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(start);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            if (node.terminal) action.accept(node.path());
+            for (int c = node.childCount - 1; c >= 0; c--) {
+                stack.push(node.children[c]);
+            }
+        }
+    }
+
+    /**
+     * @return наибольший общий префикс всех строк, пустая строка для пустого множества
+     */
+    public String longestCommonPrefix() {
+        String result = longestCommonPrefix("");
+        return result == null ? "" : result;
+    }
+
+    /**
+     * Наибольший общий префикс строк, начинающихся с prefix: спуск от узла префикса, пока у узла один ребенок
+     * и он не конец строки
+     *
+     * @return общий префикс или null, если таких строк нет
+     */
+    public String longestCommonPrefix(String prefix) {
+        Node node = locus(prefix);
+        if (node == null || node.count == 0) return null;
+        while (!node.terminal && node.childCount == 1) {
+            node = node.children[0];
+        }
+        return node.path();
+    }
+
+    /**
+     * @return узел, путь до которого начинается с prefix и короче всех таких путей, или null
+     */
+    private Node locus(String prefix) {
+        Node node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            int index = node.indexOf(prefix.charAt(i));
+            if (index < 0) return null;
+            Node child = node.children[index];
+            int matched = child.match(prefix, i);
+            if (i + matched == prefix.length()) return child;
+            if (matched < child.end - child.start) return null;
+            node = child;
+            i += matched;
+        }
+        return node;
+    }
+
+    private static class Node {
+        private static final Node[] NO_CHILDREN = new Node[0];
+        private static final char[] NO_FIRSTS = new char[0];
+
+        // метка ребра в узел - source[start, end), путь от корня - source[0, end)
+        final String source;
+        int start;
+        final int end;
+        boolean terminal;
+        int count;
+        char[] firsts = NO_FIRSTS;
+        Node[] children = NO_CHILDREN;
+        int childCount;
+
+        Node(String source, int start, int end) {
+            this.source = source;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * @return номер ребенка с первым символом c или -(точка вставки) - 1
+         */
+        int indexOf(char c) {
+            return Arrays.binarySearch(firsts, 0, childCount, c);
+        }
+
+        Node insertChild(int index, Node child) {
+            if (childCount == children.length) {
+                int capacity = Math.max(2, childCount * 2);
+                children = Arrays.copyOf(children, capacity);
+                firsts = Arrays.copyOf(firsts, capacity);
+            }
+            System.arraycopy(children, index, children, index + 1, childCount - index);
+            System.arraycopy(firsts, index, firsts, index + 1, childCount - index);
+            children[index] = child;
+            firsts[index] = child.source.charAt(child.start);
+            childCount++;
+            return child;
+        }
+
+        /**
+         * @return количество совпавших символов метки и key, начиная с позиции from в key
+         */
+        int match(String key, int from) {
+            int length = Math.min(end - start, key.length() - from);
+            for (int i = 0; i < length; i++) {
+                if (source.charAt(start + i) != key.charAt(from + i)) return i;
+            }
+            return length;
+        }
+
+        String path() {
+            return end == source.length() ? source : source.substring(0, end);
+        }
+    }
+}
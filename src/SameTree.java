@@ -1,4 +1,9 @@
-import java.util.Stack;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 
 public class SameTree {
     public static void main(String[] args) {
@@ -17,33 +22,212 @@ public class SameTree {
 //        option 2
         if (p == null && q == null) return true;
         if (p == null || q == null || p.val != q.val) return false;
-        Stack<TreeNode> stackP = new Stack<>();
-        Stack<TreeNode> stackQ = new Stack<>();
-        stackP.add(p);
-        stackQ.add(q);
-        while (!stackP.isEmpty() || !stackQ.isEmpty()) {
+        // ArrayDeque вместо Stack: Stack - синхронизированный Vector
+        Deque<TreeNode> stackP = new ArrayDeque<>();
+        Deque<TreeNode> stackQ = new ArrayDeque<>();
+        stackP.push(p);
+        stackQ.push(q);
+        while (!stackP.isEmpty()) {
             TreeNode tmpP = stackP.pop();
             TreeNode tmpQ = stackQ.pop();
             if (tmpP.val != tmpQ.val) return false;
             if (tmpP.left != null && tmpQ.left != null) {
                 stackP.push(tmpP.left);
                 stackQ.push(tmpQ.left);
-            } else if (tmpP.left == null && tmpQ.left == null) {
-            } else return false;
+            } else if (tmpP.left != null || tmpQ.left != null) return false;
             if (tmpP.right != null && tmpQ.right != null) {
                 stackP.push(tmpP.right);
                 stackQ.push(tmpQ.right);
-            } else if (tmpP.right == null && tmpQ.right == null) {
-            } else return false;
+            } else if (tmpP.right != null || tmpQ.right != null) return false;
         }
-        if (!stackP.isEmpty() || !stackQ.isEmpty()) return false;
         return true;
     }
 
+    /**
+     * Сравнение по структурным (Merkle) хешам: хеш узла зависит от значения и хешей детей, хеши кешируются в узлах.
+     * После первого вызова для дерева разные деревья отличаются за O(1), совпадение хешей подтверждается
+     * обходом {@link #isSameTree(TreeNode, TreeNode)}, поэтому коллизия 64-битных хешей не дает ложного true
+     */
+    public static boolean isSameTreeHashed(TreeNode p, TreeNode q) {
+        if (p == q) return true;
+        return merkleHash(p) == merkleHash(q) && isSameTree(p, q);
+    }
+
+    /**
+     * Пути к различающимся узлам. Поддеревья с разными хешами сравниваются дальше, а поддерево с тем же хешем
+     * пропускается после проверки обходом {@link #isSameTree(TreeNode, TreeNode)}: одинаковые поддеревья
+     * обходятся один раз, различия находятся без полного сравнения каждого узла с каждым. Путь - последовательность
+     * left/right от корня, например "root.left.right". Узел со своим значением попадает в результат, и его дети
+     * сравниваются дальше; поддерево, которого нет в одном из деревьев, попадает в результат целиком одним путем
+     *
+     * @return пути к различающимся узлам в порядке обхода в глубину, пустой список для одинаковых деревьев
+     */
+    public static List<String> diff(TreeNode p, TreeNode q) {
+        merkleHash(p);
+        merkleHash(q);
+        List<String> result = new ArrayList<>();
+        Deque<Frame> stack = new ArrayDeque<>();
+        if (p != q) stack.push(new Frame(p, q, null, null));
+        while (!stack.isEmpty()) {
+            Frame frame = stack.pop();
+            if (frame.p == null || frame.q == null) {
+                result.add(frame.path());
+                continue;
+            }
+            if (frame.p.val != frame.q.val) result.add(frame.path());
+            // правый кладется первым, чтобы левый обходился раньше
+            push(stack, frame.p.right, frame.q.right, frame, "right");
+            push(stack, frame.p.left, frame.q.left, frame, "left");
+        }
+        return result;
+    }
+
+    /**
+     * Хеш поддерева, считается итеративно (вырожденные деревья не переполняют стек) и кешируется в узлах.
+     * После изменения дерева хеши сбрасываются {@link #invalidateHashes(TreeNode, TreeNode)}
+     * или {@link #invalidateHashes(TreeNode)}, иначе разные деревья с устаревшими хешами сравниваются заново
+     * обходом, а одинаковые считаются разными
+     *
+     * @return хеш поддерева, для null - фиксированное значение
+     */
+    public static long merkleHash(TreeNode root) {
+        if (root == null) return NULL_HASH;
+        if (root.hash != 0) return root.hash;
+        // обратный обход: узел извлекается второй раз после подсчета хешей детей
+        Deque<TreeNode> stack = new ArrayDeque<>();
+        Deque<Boolean> expanded = new ArrayDeque<>();
+        stack.push(root);
+        expanded.push(false);
+        while (!stack.isEmpty()) {
+            TreeNode node = stack.pop();
+            if (expanded.pop()) {
+                node.hash = combine(node.val, hashOf(node.left), hashOf(node.right));
+                continue;
+            }
+            stack.push(node);
+            expanded.push(true);
+            if (node.right != null && node.right.hash == 0) {
+                stack.push(node.right);
+                expanded.push(false);
+            }
+            if (node.left != null && node.left.hash == 0) {
+                stack.push(node.left);
+                expanded.push(false);
+            }
+        }
+        return root.hash;
+    }
+
+    /**
+     * Сброс кешированных хешей после изменения одного узла: сбрасываются хеши узла и всех его предков.
+     * Ссылок на родителей в узлах нет, поэтому путь от корня к узлу ищется обходом, узлы вне пути не меняются
+     *
+     * @param root    корень дерева
+     * @param changed измененный узел
+     * @return true, если узел найден в дереве
+     */
+    public static boolean invalidateHashes(TreeNode root, TreeNode changed) {
+        if (root == null || changed == null) return false;
+        // пары узел-родитель, чтобы от найденного узла подняться к корню
+        Deque<TreeNode> stack = new ArrayDeque<>();
+        Map<TreeNode, TreeNode> parents = new IdentityHashMap<>();
+        stack.push(root);
+        parents.put(root, null);
+        while (!stack.isEmpty()) {
+            TreeNode node = stack.pop();
+            if (node == changed) {
+                for (TreeNode ancestor = node; ancestor != null; ancestor = parents.get(ancestor)) {
+                    ancestor.hash = 0;
+                }
+                return true;
+            }
+            if (node.right != null) {
+                parents.put(node.right, node);
+                stack.push(node.right);
+            }
+            if (node.left != null) {
+                parents.put(node.left, node);
+                stack.push(node.left);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Сброс кешированных хешей всего поддерева
+     */
+    public static void invalidateHashes(TreeNode root) {
+        Deque<TreeNode> stack = new ArrayDeque<>();
+        if (root != null) stack.push(root);
+        while (!stack.isEmpty()) {
+            TreeNode node = stack.pop();
+            node.hash = 0;
+            if (node.left != null) stack.push(node.left);
+            if (node.right != null) stack.push(node.right);
+        }
+    }
+
+    private static final long NULL_HASH = 0x27d4eb2f165667c5L;
+
+    private static void push(Deque<Frame> stack, TreeNode p, TreeNode q, Frame parent, String step) {
+        if (p == q || hashOf(p) == hashOf(q) && isSameTree(p, q)) return;
+        stack.push(new Frame(p, q, parent, step));
+    }
+
+    private static long hashOf(TreeNode node) {
+        return node == null ? NULL_HASH : node.hash;
+    }
+
+    private static long combine(int val, long left, long right) {
+        long h = val;
+        h = h * 0x9E3779B97F4A7C15L + left;
+        h = h * 0xC2B2AE3D27D4EB4FL + right;
+        // финальное перемешивание MurmurHash3
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        // 0 означает, что хеш не посчитан
+        return h == 0 ? 1 : h;
+    }
+
+    /**
+     * Пара сравниваемых узлов. Путь хранится ссылкой на родителя и собирается в строку только для различий,
+     * иначе на длинной цепочке различающихся предков строки путей заняли бы O(глубина^2)
+     */
+    private static class Frame {
+        final TreeNode p;
+        final TreeNode q;
+        final Frame parent;
+        final String step;
+
+        Frame(TreeNode p, TreeNode q, Frame parent, String step) {
+            this.p = p;
+            this.q = q;
+            this.parent = parent;
+            this.step = step;
+        }
+
+        String path() {
+            Deque<String> steps = new ArrayDeque<>();
+            for (Frame frame = this; frame.parent != null; frame = frame.parent) {
+                steps.push(frame.step);
+            }
+            StringBuilder result = new StringBuilder("root");
+            for (String step : steps) {
+                result.append('.').append(step);
+            }
+            return result.toString();
+        }
+    }
+
     public static class TreeNode {
         int val;
         TreeNode left;
         TreeNode right;
+        // хеш поддерева, 0 - не посчитан, см. merkleHash; volatile - хеши считаются и читаются из разных потоков
+        volatile long hash;
 
         TreeNode() {
         }
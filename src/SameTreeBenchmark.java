@@ -0,0 +1,106 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Бенчмарк сравнения деревьев: последовательный {@link SameTree#isSameTree} против {@link ParallelSameTree}
+ * в пулах на 1, 2, 4, ... потоков до числа ядер.
+ * <p>
+ * Деревья: сбалансированное случайное, вырожденное (список) и пара с различием в листе посередине нижнего уровня
+ * (до несовпадения выполняется часть работы, остальные задачи отменяются). Для каждого замера выводится
+ * медиана времени и ускорение относительно последовательного варианта.
+ * <p>
+ * Аргументы: количество узлов (по умолчанию 4000000). Количество итераций задается свойствами
+ * benchmark.warmup и benchmark.iterations
+ */
+public class SameTreeBenchmark {
+    private static final int WARMUP_ITERATIONS = Integer.getInteger("benchmark.warmup", 3);
+    private static final int MEASUREMENT_ITERATIONS = Integer.getInteger("benchmark.iterations", 5);
+
+    private static volatile boolean blackhole;
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0].replace("_", "")) : 4_000_000;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        SameTree.TreeNode balanced = balanced(size, new Random(42));
+        SameTree.TreeNode degenerate = degenerate(size);
+        SameTree.TreeNode differentLeaf = balanced(size, new Random(42));
+        int lastLevel = Integer.highestOneBit(size) - 1;
+        node(differentLeaf, lastLevel + (size - lastLevel) / 2).val++;
+
+        System.out.printf("%-14s %-12s %8s %12s %8s%n", "tree", "mode", "threads", "ms/op", "speedup");
+        run("balanced", balanced, balanced(size, new Random(42)), cores);
+        run("degenerate", degenerate, degenerate(size), cores);
+        run("differentLeaf", balanced, differentLeaf, cores);
+    }
+
+    private static void run(String tree, SameTree.TreeNode p, SameTree.TreeNode q, int cores) {
+        double sequential = measure(() -> SameTree.isSameTree(p, q));
+        System.out.printf("%-14s %-12s %8d %12.3f %8.2f%n", tree, "sequential", 1, sequential, 1.0);
+        for (int threads = 1; ; threads = Math.min(threads * 2, cores)) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                ParallelSameTree comparator = new ParallelSameTree(pool);
+                double parallel = measure(() -> comparator.isSameTree(p, q));
+                System.out.printf("%-14s %-12s %8d %12.3f %8.2f%n", tree, "forkJoin", threads, parallel, sequential / parallel);
+            } finally {
+                pool.shutdown();
+            }
+            if (threads == cores) break;
+        }
+    }
+
+    /**
+     * @return медиана времени операции в миллисекундах
+     */
+    private static double measure(BooleanSupplier operation) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            blackhole = operation.getAsBoolean();
+        }
+        double[] times = new double[MEASUREMENT_ITERATIONS];
+        for (int i = 0; i < times.length; i++) {
+            long start = System.nanoTime();
+            blackhole = operation.getAsBoolean();
+            times[i] = (System.nanoTime() - start) / 1e6;
+        }
+        Arrays.sort(times);
+        return times[times.length / 2];
+    }
+
+    /**
+     * Полное двоичное дерево в порядке уровней, строится без рекурсии
+     */
+    private static SameTree.TreeNode balanced(int size, Random random) {
+        SameTree.TreeNode[] nodes = new SameTree.TreeNode[size];
+        for (int i = size - 1; i >= 0; i--) {
+            int left = 2 * i + 1;
+            int right = left + 1;
+            nodes[i] = new SameTree.TreeNode(random.nextInt(),
+                    left < size ? nodes[left] : null, right < size ? nodes[right] : null);
+        }
+        return size == 0 ? null : nodes[0];
+    }
+
+    private static SameTree.TreeNode degenerate(int size) {
+        SameTree.TreeNode root = null;
+        for (int i = 0; i < size; i++) {
+            root = new SameTree.TreeNode(i, null, root);
+        }
+        return root;
+    }
+
+    /**
+     * @param index номер узла в порядке уровней, как в {@link #balanced(int, Random)}
+     */
+    private static SameTree.TreeNode node(SameTree.TreeNode root, int index) {
+        // биты номера index + 1 после старшего - путь от корня: 0 - влево, 1 - вправо
+        int path = index + 1;
+        SameTree.TreeNode node = root;
+        for (int bit = Integer.highestOneBit(path) >> 1; bit > 0; bit >>= 1) {
+            node = (path & bit) == 0 ? node.left : node.right;
+        }
+        return node;
+    }
+}
@@ -0,0 +1,263 @@
+package search;
+
+import java.util.Arrays;
+
+/**
+ * Позиция вставки в отсортированный массив (searchInsert из Main) без копирования массива и без выделения
+ * памяти на запрос. Результат - номер первого элемента, не меньшего ключа (lower_bound), или длина массива.
+ * <p>
+ * {@link #searchInsert(int[], int)} - двоичный поиск без ветвлений: на каждом шаге диапазон уменьшается на половину
+ * независимо от результата сравнения, а сравнение выбирает только смещение, что JIT компилирует в cmov.
+ * Количество шагов одинаково для всех ключей, предсказатель переходов не ошибается.
+ * <p>
+ * Пакетные варианты ведут поиск группы ключей одновременно, по одному шагу для каждого ключа группы: обращения
+ * к памяти разных ключей независимы, и процессор ожидает промахи кеша для них параллельно.
+ * <p>
+ * {@link Eytzinger} хранит копию массива в порядке обхода в ширину неявного дерева поиска: первые уровни,
+ * через которые проходят все запросы, лежат рядом в начале массива и остаются в кеше, {@link LongEytzinger} -
+ * то же для long. Сравнение с {@link Arrays#binarySearch(int[], int)} - SortedSearchBenchmark в исходниках jmh
+ */
+public class SortedSearch {
+    // ключей в группе пакетного поиска
+    private static final int BATCH = 16;
+
+    private SortedSearch() {
+    }
+
+    public static void main(String[] args) {
+        int[] nums = {1, 3, 5, 6};
+        System.out.println(searchInsert(nums, 5));
+        System.out.println(searchInsert(nums, 2));
+        System.out.println(searchInsert(nums, 7));
+        System.out.println(searchInsert(nums, 0));
+        System.out.println(new Eytzinger(nums).searchInsert(2));
+    }
+
+    /**
+     * @param sorted массив, отсортированный по возрастанию
+     * @return номер первого элемента, не меньшего key, или sorted.length
+     */
+    public static int searchInsert(int[] sorted, int key) {
+        int length = sorted.length;
+        if (length == 0) return 0;
+        int base = 0;
+        while (length > 1) {
+            int half = length >>> 1;
+            base = sorted[base + half - 1] < key ? base + half : base;
+            length -= half;
+        }
+        return base + (sorted[base] < key ? 1 : 0);
+    }
+
+    /**
+     * @see #searchInsert(int[], int)
+     */
+    public static int searchInsert(long[] sorted, long key) {
+        int length = sorted.length;
+        if (length == 0) return 0;
+        int base = 0;
+        while (length > 1) {
+            int half = length >>> 1;
+            base = sorted[base + half - 1] < key ? base + half : base;
+            length -= half;
+        }
+        return base + (sorted[base] < key ? 1 : 0);
+    }
+
+    /**
+     * Пакетный поиск, результат для keys[i] записывается в result[i]
+     *
+     * @param sorted массив, отсортированный по возрастанию
+     * @param keys   ключи в любом порядке
+     * @param result массив не короче keys
+     */
+    public static void searchInsert(int[] sorted, int[] keys, int[] result) {
+        checkBatch(keys.length, result.length);
+        for (int from = 0; from < keys.length; from += BATCH) {
+            int to = Math.min(keys.length, from + BATCH);
+            // result[i] хранит начало диапазона поиска ключа i
+            Arrays.fill(result, from, to, 0);
+            int length = sorted.length;
+            while (length > 1) {
+                int half = length >>> 1;
+                for (int i = from; i < to; i++) {
+                    int base = result[i];
+                    result[i] = sorted[base + half - 1] < keys[i] ? base + half : base;
+                }
+                length -= half;
+            }
+            if (sorted.length == 0) continue;
+            for (int i = from; i < to; i++) {
+                result[i] += sorted[result[i]] < keys[i] ? 1 : 0;
+            }
+        }
+    }
+
+    /**
+     * @see #searchInsert(int[], int[], int[])
+     */
+    public static void searchInsert(long[] sorted, long[] keys, int[] result) {
+        checkBatch(keys.length, result.length);
+        for (int from = 0; from < keys.length; from += BATCH) {
+            int to = Math.min(keys.length, from + BATCH);
+            Arrays.fill(result, from, to, 0);
+            int length = sorted.length;
+            while (length > 1) {
+                int half = length >>> 1;
+                for (int i = from; i < to; i++) {
+                    int base = result[i];
+                    result[i] = sorted[base + half - 1] < keys[i] ? base + half : base;
+                }
+                length -= half;
+            }
+            if (sorted.length == 0) continue;
+            for (int i = from; i < to; i++) {
+                result[i] += sorted[result[i]] < keys[i] ? 1 : 0;
+            }
+        }
+    }
+
+    private static void checkBatch(int keys, int result) {
+        if (result < keys) throw new IllegalArgumentException("result is shorter than keys: " + result + " < " + keys);
+    }
+
+    /**
+     * Отсортированный массив в раскладке Эйтцингера: узел k (с 1) - корень поддерева, дети - 2k и 2k + 1.
+     * Строится за O(n), занимает два int на элемент (значение и номер в исходном массиве), до 2^30 элементов
+     */
+    public static class Eytzinger {
+        private final int[] tree;
+        private final int[] ranks;
+        private final int size;
+        private final int levels;
+
+        /**
+         * @param sorted массив, отсортированный по возрастанию, копируется
+         */
+        public Eytzinger(int[] sorted) {
+            // номера узлов до 2 * size + 1 должны помещаться в int
+            if (sorted.length >= 1 << 30) throw new IllegalArgumentException("array is too large: " + sorted.length);
+            size = sorted.length;
+            tree = new int[size + 1];
+            ranks = new int[size + 1];
+            levels = 32 - Integer.numberOfLeadingZeros(size);
+            // симметричный обход неявного дерева без рекурсии: спуск влево до конца, затем правое поддерево
+            int next = 0;
+            int k = 1;
+            while (next < size) {
+                while (k <= size) k <<= 1;
+                // k вышел за дерево слева, подъем к ближайшему предку, в чьем левом поддереве он был
+                k >>>= Integer.numberOfTrailingZeros(~k) + 1;
+                tree[k] = sorted[next];
+                ranks[k] = next++;
+                k = 2 * k + 1;
+            }
+        }
+
+        /**
+         * @see SortedSearch#searchInsert(int[], int)
+         */
+        public int searchInsert(int key) {
+            int k = 1;
+            while (k <= size) {
+                k = 2 * k + (tree[k] < key ? 1 : 0);
+            }
+            // последний переход влево - узел ответа: отбрасываются переходы вправо после него и он сам
+            k >>>= Integer.numberOfTrailingZeros(~k) + 1;
+            return k == 0 ? size : ranks[k];
+        }
+
+        /**
+         * @see SortedSearch#searchInsert(int[], int[], int[])
+         */
+        public void searchInsert(int[] keys, int[] result) {
+            checkBatch(keys.length, result.length);
+            for (int from = 0; from < keys.length; from += BATCH) {
+                int to = Math.min(keys.length, from + BATCH);
+                Arrays.fill(result, from, to, 1);
+                for (int level = 0; level < levels; level++) {
+                    for (int i = from; i < to; i++) {
+                        int k = result[i];
+                        // на последнем уровне часть ключей уже вышла за дерево
+                        if (k <= size) result[i] = 2 * k + (tree[k] < keys[i] ? 1 : 0);
+                    }
+                }
+                for (int i = from; i < to; i++) {
+                    int k = result[i] >>> (Integer.numberOfTrailingZeros(~result[i]) + 1);
+                    result[i] = k == 0 ? size : ranks[k];
+                }
+            }
+        }
+
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * {@link Eytzinger} для long: занимает long и int на элемент (значение и номер в исходном массиве)
+     */
+    public static class LongEytzinger {
+        private final long[] tree;
+        private final int[] ranks;
+        private final int size;
+        private final int levels;
+
+        /**
+         * @param sorted массив, отсортированный по возрастанию, копируется, до 2^30 элементов
+         */
+        public LongEytzinger(long[] sorted) {
+            if (sorted.length >= 1 << 30) throw new IllegalArgumentException("array is too large: " + sorted.length);
+            size = sorted.length;
+            tree = new long[size + 1];
+            ranks = new int[size + 1];
+            levels = 32 - Integer.numberOfLeadingZeros(size);
+            int next = 0;
+            int k = 1;
+            while (next < size) {
+                while (k <= size) k <<= 1;
+                k >>>= Integer.numberOfTrailingZeros(~k) + 1;
+                tree[k] = sorted[next];
+                ranks[k] = next++;
+                k = 2 * k + 1;
+            }
+        }
+
+        /**
+         * @see SortedSearch#searchInsert(long[], long)
+         */
+        public int searchInsert(long key) {
+            int k = 1;
+            while (k <= size) {
+                k = 2 * k + (tree[k] < key ? 1 : 0);
+            }
+            k >>>= Integer.numberOfTrailingZeros(~k) + 1;
+            return k == 0 ? size : ranks[k];
+        }
+
+        /**
+         * @see SortedSearch#searchInsert(long[], long[], int[])
+         */
+        public void searchInsert(long[] keys, int[] result) {
+            checkBatch(keys.length, result.length);
+            for (int from = 0; from < keys.length; from += BATCH) {
+                int to = Math.min(keys.length, from + BATCH);
+                Arrays.fill(result, from, to, 1);
+                for (int level = 0; level < levels; level++) {
+                    for (int i = from; i < to; i++) {
+                        int k = result[i];
+                        if (k <= size) result[i] = 2 * k + (tree[k] < keys[i] ? 1 : 0);
+                    }
+                }
+                for (int i = from; i < to; i++) {
+                    int k = result[i] >>> (Integer.numberOfTrailingZeros(~result[i]) + 1);
+                    result[i] = k == 0 ? size : ranks[k];
+                }
+            }
+        }
+
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package streamapi;
+
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Выбор режима выполнения конвейера {@link StreamAPI} на каждый вызов: последовательно,
+ * параллельно в общем ForkJoinPool или параллельно в отдельном пуле на все ядра.
+ * <p>
+ * Оценка работы - размер источника, умноженный на измеренную стоимость обработки элемента операции
+ * (экспоненциальное скользящее среднее по прошлым вызовам, для параллельных запусков время пересчитывается
+ * на один поток). Если источник плохо делится (список без {@link RandomAccess}, например LinkedList, который
+ * отдает части через копирование в массивы растущего размера, spliterator без SUBSIZED
+ * или {@link RosterSpliterators.IndexedSpliterator} над списками без {@link RandomAccess}),
+ * параллельный запуск требует в {@value #UNBALANCED_PENALTY} раз больше работы.
+ * <ul>
+ *     <li>работа меньше порога streamapi.planner.parallelThresholdNanos (1 мс) или операция зависит от порядка
+ *     обхода или меняет специалистов ({@link StreamOperation#isOrderSensitive()}) - последовательно</li>
+ *     <li>источник от streamapi.planner.dedicatedThreshold элементов (10 млн) - отдельный пул на все ядра,
+ *     длинные задачи не занимают общий пул</li>
+ *     <li>иначе - общий пул</li>
+ * </ul>
+ * Режим можно зафиксировать свойством streamapi.planner.mode=SEQUENTIAL|COMMON_POOL|DEDICATED_POOL,
+ * кроме операций {@link StreamOperation#isOrderSensitive()}, они выполняются последовательно в любом режиме
+ */
+public final class ExecutionPlanner {
+    private static final long PARALLEL_THRESHOLD_NANOS = Long.getLong("streamapi.planner.parallelThresholdNanos", 1_000_000);
+    private static final long DEDICATED_THRESHOLD = Long.getLong("streamapi.planner.dedicatedThreshold", 10_000_000);
+    private static final Mode FORCED_MODE = forcedMode(System.getProperty("streamapi.planner.mode"));
+    private static final int UNBALANCED_PENALTY = 8;
+    private static final double DEFAULT_NANOS_PER_ELEMENT = 25;
+    private static final double SMOOTHING = 0.2;
+    // меньшие запуски не учитываются в оценке: в их времени преобладают накладные расходы на создание стрима
+    private static final long MIN_SAMPLE_SIZE = 1024;
+    private static final int CORES = Runtime.getRuntime().availableProcessors();
+
+    // стоимость элемента в наносекундах по операциям, биты double
+    private static final AtomicLongArray COSTS = new AtomicLongArray(StreamOperation.values().length);
+
+    static {
+        for (int i = 0; i < COSTS.length(); i++) {
+            COSTS.set(i, Double.doubleToRawLongBits(DEFAULT_NANOS_PER_ELEMENT));
+        }
+    }
+
+    /**
+     * Режим выполнения
+     */
+    public enum Mode {
+        SEQUENTIAL, COMMON_POOL, DEDICATED_POOL
+    }
+
+    private ExecutionPlanner() {
+    }
+
+    /**
+     * Выполнение конвейера над списком, см. {@link #execute(StreamOperation, Spliterator, Function, ToLongFunction)}
+     */
+    public static <T, R> R execute(StreamOperation operation, List<T> source,
+                                   Function<Stream<T>, R> pipeline, ToLongFunction<? super R> resultSize) {
+        return execute(operation, source.spliterator(), source instanceof RandomAccess, pipeline, resultSize);
+    }
+
+    /**
+     * Выполнение конвейера в выбранном режиме с учетом времени в оценке стоимости и записью метрик
+     * {@link StreamAPIMetrics}
+     *
+     * @param operation  операция
+     * @param source     источник, из него создается последовательный или параллельный стрим
+     * @param pipeline   конвейер над стримом
+     * @param resultSize размер результата для метрик
+     * @return результат конвейера
+     */
+    public static <T, R> R execute(StreamOperation operation, Spliterator<T> source,
+                                   Function<Stream<T>, R> pipeline, ToLongFunction<? super R> resultSize) {
+        return execute(operation, source, balanced(source), pipeline, resultSize);
+    }
+
+    /**
+     * @param operation операция
+     * @param source    источник
+     * @return режим, в котором будет выполнен конвейер над списком
+     */
+    public static Mode plan(StreamOperation operation, List<?> source) {
+        return plan(operation, source.size(), source instanceof RandomAccess);
+    }
+
+    /**
+     * @param operation операция
+     * @param source    источник
+     * @return режим, в котором будет выполнен конвейер над источником
+     */
+    public static Mode plan(StreamOperation operation, Spliterator<?> source) {
+        return plan(operation, source.getExactSizeIfKnown(), balanced(source));
+    }
+
+    /**
+     * SUBSIZED говорит только о точности деления: части IndexedSpliterator над LinkedList точные,
+     * но каждая из них перед обходом проходит список до своего начала
+     */
+    private static boolean balanced(Spliterator<?> source) {
+        if (source instanceof RosterSpliterators.IndexedSpliterator
+                && !((RosterSpliterators.IndexedSpliterator<?>) source).isRandomAccess()) return false;
+        return source.hasCharacteristics(Spliterator.SUBSIZED);
+    }
+
+    /**
+     * @return текущая оценка стоимости обработки одного элемента операции в наносекундах
+     */
+    public static double nanosPerElement(StreamOperation operation) {
+        return Double.longBitsToDouble(COSTS.get(operation.ordinal()));
+    }
+
+    private static <T, R> R execute(StreamOperation operation, Spliterator<T> source, boolean balanced,
+                                    Function<Stream<T>, R> pipeline, ToLongFunction<? super R> resultSize) {
+        long size = source.getExactSizeIfKnown();
+        Mode mode = plan(operation, size, balanced);
+        boolean metrics = StreamAPIMetrics.isEnabled();
+        boolean sample = size >= MIN_SAMPLE_SIZE;
+        long start = sample || metrics ? System.nanoTime() : 0;
+        R result = run(mode, source, pipeline);
+        long elapsed = sample || metrics ? System.nanoTime() - start : 0;
+        if (sample) learn(operation, mode, size, elapsed);
+        if (metrics) {
+            StreamAPIMetrics.record(operation, start, Math.max(0, size), resultSize.applyAsLong(result), mode != Mode.SEQUENTIAL);
+        }
+        return result;
+    }
+
+    /**
+     * @param size     количество элементов, -1, если неизвестно
+     * @param balanced делится ли источник на равные части
+     */
+    private static Mode plan(StreamOperation operation, long size, boolean balanced) {
+        // операции, зависящие от порядка или меняющие специалистов, не распараллеливаются и в зафиксированном режиме
+        if (operation.isOrderSensitive()) return Mode.SEQUENTIAL;
+        if (FORCED_MODE != null) return FORCED_MODE;
+        if (CORES == 1 || size < 2) return Mode.SEQUENTIAL;
+        double work = size * nanosPerElement(operation);
+        if (!balanced) work /= UNBALANCED_PENALTY;
+        if (work < PARALLEL_THRESHOLD_NANOS) return Mode.SEQUENTIAL;
+        return size >= DEDICATED_THRESHOLD ? Mode.DEDICATED_POOL : Mode.COMMON_POOL;
+    }
+
+    private static <T, R> R run(Mode mode, Spliterator<T> source, Function<Stream<T>, R> pipeline) {
+        switch (mode) {
+            case COMMON_POOL:
+                return pipeline.apply(StreamSupport.stream(source, true));
+            case DEDICATED_POOL:
+                // задачи параллельного стрима выполняются в пуле, из потока которого запущена терминальная операция
+                return DedicatedPool.POOL.submit(() -> pipeline.apply(StreamSupport.stream(source, true))).join();
+            default:
+                return pipeline.apply(StreamSupport.stream(source, false));
+        }
+    }
+
+    /**
+     * Гонки при обновлении допустимы: теряется одно из одновременных измерений
+     */
+    private static void learn(StreamOperation operation, Mode mode, long size, long elapsedNanos) {
+        int threads = mode == Mode.SEQUENTIAL ? 1
+                : mode == Mode.COMMON_POOL ? ForkJoinPool.getCommonPoolParallelism() + 1 : DedicatedPool.POOL.getParallelism();
+        double measured = (double) elapsedNanos * threads / size;
+        double previous = nanosPerElement(operation);
+        COSTS.set(operation.ordinal(), Double.doubleToRawLongBits(previous + SMOOTHING * (measured - previous)));
+    }
+
+    private static Mode forcedMode(String mode) {
+        return mode == null || mode.isEmpty() ? null : Mode.valueOf(mode);
+    }
+
+    /**
+     * Пул создается при первом запуске в режиме {@link Mode#DEDICATED_POOL}, потоки пула - демоны
+     */
+    private static class DedicatedPool {
+        static final ForkJoinPool POOL = new ForkJoinPool(CORES);
+    }
+}
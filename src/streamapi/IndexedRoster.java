@@ -0,0 +1,472 @@
+package streamapi;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Список специалистов с вторичными индексами:
+ * индекс по специальности (корзины EnumMap - деревья {@link TreeMap} по порядковому номеру добавления)
+ * и индекс по зарплате (декартово дерево с размерами поддеревьев). Поиск по специальности, проверки
+ * anyMatch/noneMatch/allMatch и подсчеты выполняются за O(1) или O(log n) вместо полного прохода, как в {@link StreamAPI}.
+ * Добавление, удаление и изменение зарплаты или специальности стоят O(log n), список из коллекции строится
+ * одной сортировкой за O(n log n).
+ * Специалисты хранятся по ссылке, индексы обновляются через {@link SpecialistListener}
+ * при вызове {@link Specialist#setSalary(int)} и {@link Specialist#setSpeciality(Speciality)}
+ */
+public class IndexedRoster implements SpecialistListener {
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Specialist, Entry> entries = new IdentityHashMap<>();
+    // корзины по специальности: порядковый номер добавления -> запись
+    private final Map<Speciality, NavigableMap<Long, Entry>> bySpeciality = new EnumMap<>(Speciality.class);
+    // индекс по зарплате: декартово дерево записей, упорядоченных по (зарплата, порядковый номер добавления)
+    private Entry bySalary;
+    private long nextSequence;
+
+    public IndexedRoster() {
+    }
+
+    /**
+     * Индекс по зарплате строится одной сортировкой, а не вставкой по одному
+     *
+     * @param specialists специалисты, повторные ссылки пропускаются
+     */
+    public IndexedRoster(Collection<Specialist> specialists) {
+        for (Specialist specialist : specialists) {
+            Objects.requireNonNull(specialist.getSpeciality(), "speciality");
+        }
+        lock.writeLock().lock();
+        try {
+            Entry[] sorted = new Entry[specialists.size()];
+            int count = 0;
+            for (Specialist specialist : specialists) {
+                if (entries.containsKey(specialist)) continue;
+                specialist.addListener(this);
+                Entry entry = new Entry(specialist, nextSequence++, specialist.getSalary(), specialist.getSpeciality());
+                entries.put(specialist, entry);
+                insertBySpeciality(entry);
+                sorted[count++] = entry;
+            }
+            // порядковые номера возрастают, сортировка устойчива, равные зарплаты остаются в порядке добавления
+            Arrays.sort(sorted, 0, count, Comparator.comparingInt(entry -> entry.salary));
+            bySalary = build(sorted, count);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param specialist специалист
+     * @return false, если специалист (та же ссылка) уже есть в списке
+     */
+    public boolean add(Specialist specialist) {
+        Objects.requireNonNull(specialist.getSpeciality(), "speciality");
+        lock.writeLock().lock();
+        try {
+            if (entries.containsKey(specialist)) return false;
+            // подписка до чтения полей, чтобы не пропустить изменение из другого потока
+            specialist.addListener(this);
+            Entry entry = new Entry(specialist, nextSequence++, specialist.getSalary(), specialist.getSpeciality());
+            entries.put(specialist, entry);
+            insertBySpeciality(entry);
+            insertBySalary(entry);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param specialist специалист
+     * @return true, если специалист (та же ссылка) был в списке
+     */
+    public boolean remove(Specialist specialist) {
+        lock.writeLock().lock();
+        try {
+            Entry entry = entries.remove(specialist);
+            if (entry == null) return false;
+            specialist.removeListener(this);
+            removeBySpeciality(entry);
+            removeBySalary(entry);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return специалисты в порядке добавления
+     */
+    public List<Specialist> toList() {
+        lock.readLock().lock();
+        try {
+            Entry[] ordered = entries.values().toArray(new Entry[0]);
+            Arrays.sort(ordered, Comparator.comparingLong(entry -> entry.sequence));
+            List<Specialist> result = new ArrayList<>(ordered.length);
+            for (Entry entry : ordered) {
+                result.add(entry.specialist);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Аналог {@link StreamAPI#filterSpecialistsBySpeciality(List, Speciality)}, копируется только корзина специальности
+     *
+     * @param speciality специальность
+     * @return специалисты с указанной специальностью в порядке добавления
+     */
+    public List<Specialist> filterSpecialistsBySpeciality(Speciality speciality) {
+        lock.readLock().lock();
+        try {
+            NavigableMap<Long, Entry> bucket = speciality == null ? null : bySpeciality.get(speciality);
+            if (bucket == null) return new ArrayList<>();
+            List<Specialist> result = new ArrayList<>(bucket.size());
+            for (Entry entry : bucket.values()) {
+                result.add(entry.specialist);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param speciality специальность
+     * @return количество специалистов с указанной специальностью, O(1)
+     */
+    public int countBySpeciality(Speciality speciality) {
+        lock.readLock().lock();
+        try {
+            NavigableMap<Long, Entry> bucket = speciality == null ? null : bySpeciality.get(speciality);
+            return bucket == null ? 0 : bucket.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param fromInclusive нижняя граница зарплаты включительно
+     * @param toExclusive   верхняя граница зарплаты не включительно
+     * @return количество специалистов с зарплатой в диапазоне, O(log n)
+     */
+    public int countBySalaryRange(long fromInclusive, long toExclusive) {
+        lock.readLock().lock();
+        try {
+            return Math.max(0, lowerBound(toExclusive) - lowerBound(fromInclusive));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param fromInclusive нижняя граница зарплаты включительно
+     * @param toExclusive   верхняя граница зарплаты не включительно
+     * @return специалисты с зарплатой в диапазоне по возрастанию зарплаты, при равной зарплате - в порядке добавления
+     */
+    public List<Specialist> findBySalaryRange(long fromInclusive, long toExclusive) {
+        lock.readLock().lock();
+        try {
+            List<Specialist> result = new ArrayList<>(Math.max(0, lowerBound(toExclusive) - lowerBound(fromInclusive)));
+            // симметричный обход с первой записи диапазона, в стеке записи, чьи правые поддеревья еще не пройдены
+            Deque<Entry> stack = new ArrayDeque<>();
+            for (Entry node = bySalary; node != null; ) {
+                if (node.salary >= fromInclusive) {
+                    stack.push(node);
+                    node = node.left;
+                } else {
+                    node = node.right;
+                }
+            }
+            while (!stack.isEmpty()) {
+                Entry entry = stack.pop();
+                if (entry.salary >= toExclusive) break;
+                result.add(entry.specialist);
+                for (Entry node = entry.right; node != null; node = node.left) {
+                    stack.push(node);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param salary зарплата
+     * @return true, если у всех специалистов зарплата не меньше указанной, O(log n) по минимальной зарплате
+     */
+    public boolean allMatchSalaryAtLeast(int salary) {
+        lock.readLock().lock();
+        try {
+            Entry min = bySalary;
+            if (min == null) return true;
+            while (min.left != null) min = min.left;
+            return min.salary >= salary;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param salary зарплата
+     * @return true, если хоть у одного специалиста зарплата больше указанной, O(log n) по максимальной зарплате
+     */
+    public boolean anyMatchSalaryAbove(int salary) {
+        lock.readLock().lock();
+        try {
+            Entry max = bySalary;
+            if (max == null) return false;
+            while (max.right != null) max = max.right;
+            return max.salary > salary;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Аналог {@link StreamAPI#countSpecialistWithSalaryOverMill(List)}
+     */
+    public long countSpecialistWithSalaryOverMill() {
+        return countBySalaryRange(1000000, Long.MAX_VALUE);
+    }
+
+    /**
+     * Аналог {@link StreamAPI#allMatchIsAllHaveSalaryOver900k(List)}
+     */
+    public boolean allMatchIsAllHaveSalaryOver900k() {
+        return allMatchSalaryAtLeast(900000);
+    }
+
+    /**
+     * Аналог {@link StreamAPI#anyMatchIsTeamHasBusinessAnalyst(List)}
+     */
+    public boolean anyMatchIsTeamHasBusinessAnalyst() {
+        return countBySpeciality(Speciality.BUSINESS_ANALYST) > 0;
+    }
+
+    /**
+     * Аналог {@link StreamAPI#noneMatchCheck(List)}
+     */
+    public boolean noneMatchCheck() {
+        return !anyMatchSalaryAbove(2000000);
+    }
+
+    @Override
+    public void salaryChanged(Specialist specialist, int oldSalary) {
+        lock.writeLock().lock();
+        try {
+            Entry entry = entries.get(specialist);
+            if (entry == null) return;
+            removeBySalary(entry);
+            entry.salary = specialist.getSalary();
+            insertBySalary(entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void specialityChanged(Specialist specialist, Speciality oldSpeciality) {
+        lock.writeLock().lock();
+        try {
+            Entry entry = entries.get(specialist);
+            if (entry == null) return;
+            removeBySpeciality(entry);
+            entry.speciality = specialist.getSpeciality();
+            insertBySpeciality(entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Корзины упорядочены по порядковому номеру добавления, поэтому при смене специальности
+     * запись встает на свое место, а не в конец
+     */
+    private void insertBySpeciality(Entry entry) {
+        if (entry.speciality == null) return;
+        bySpeciality.computeIfAbsent(entry.speciality, s -> new TreeMap<>()).put(entry.sequence, entry);
+    }
+
+    private void removeBySpeciality(Entry entry) {
+        if (entry.speciality == null) return;
+        NavigableMap<Long, Entry> bucket = bySpeciality.get(entry.speciality);
+        bucket.remove(entry.sequence);
+        if (bucket.isEmpty()) bySpeciality.remove(entry.speciality);
+    }
+
+    /**
+     * Спуск до первой записи с приоритетом ниже новой, поддерево этой записи делится по ключу новой записи
+     * на ее левое и правое поддеревья. Размеры поддеревьев на пути увеличиваются при спуске
+     */
+    private void insertBySalary(Entry entry) {
+        Entry parent = null;
+        Entry node = bySalary;
+        while (node != null && node.priority >= entry.priority) {
+            node.count++;
+            parent = node;
+            node = before(node, entry) ? node.right : node.left;
+        }
+        split(node, entry);
+        update(entry);
+        if (parent == null) {
+            bySalary = entry;
+        } else if (before(parent, entry)) {
+            parent.right = entry;
+        } else {
+            parent.left = entry;
+        }
+    }
+
+    /**
+     * Запись ищется по старой зарплате и заменяется слиянием своих поддеревьев
+     */
+    private void removeBySalary(Entry entry) {
+        Entry parent = null;
+        Entry node = bySalary;
+        while (node != entry) {
+            node.count--;
+            parent = node;
+            node = before(node, entry) ? node.right : node.left;
+        }
+        Entry merged = merge(entry.left, entry.right);
+        if (parent == null) {
+            bySalary = merged;
+        } else if (parent.left == entry) {
+            parent.left = merged;
+        } else {
+            parent.right = merged;
+        }
+        entry.left = null;
+        entry.right = null;
+    }
+
+    /**
+     * @return количество записей с зарплатой меньше указанной
+     */
+    private int lowerBound(long salary) {
+        int rank = 0;
+        Entry node = bySalary;
+        while (node != null) {
+            if (node.salary < salary) {
+                rank += count(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Построение дерева из записей, отсортированных по ключу, за O(n): в стеке правый край построенного дерева,
+     * записи с меньшим приоритетом, чем новая, снимаются со стека и становятся ее левым поддеревом
+     */
+    private static Entry build(Entry[] sorted, int length) {
+        Deque<Entry> stack = new ArrayDeque<>();
+        for (int i = 0; i < length; i++) {
+            Entry entry = sorted[i];
+            Entry last = null;
+            while (!stack.isEmpty() && stack.peek().priority < entry.priority) {
+                last = stack.pop();
+                update(last);
+            }
+            entry.left = last;
+            if (!stack.isEmpty()) stack.peek().right = entry;
+            stack.push(entry);
+        }
+        Entry root = null;
+        while (!stack.isEmpty()) {
+            root = stack.pop();
+            update(root);
+        }
+        return root;
+    }
+
+    /**
+     * Делит поддерево node на записи с ключом меньше ключа key (в key.left) и остальные (в key.right).
+     * Глубина рекурсии - высота дерева, при случайных приоритетах O(log n)
+     */
+    private static void split(Entry node, Entry key) {
+        if (node == null) {
+            key.left = null;
+            key.right = null;
+        } else if (before(node, key)) {
+            split(node.right, key);
+            node.right = key.left;
+            key.left = node;
+            update(node);
+        } else {
+            split(node.left, key);
+            node.left = key.right;
+            key.right = node;
+            update(node);
+        }
+    }
+
+    /**
+     * Слияние деревьев, все ключи left меньше ключей right
+     */
+    private static Entry merge(Entry left, Entry right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.priority >= right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private static boolean before(Entry a, Entry b) {
+        return a.salary < b.salary || (a.salary == b.salary && a.sequence < b.sequence);
+    }
+
+    private static int count(Entry node) {
+        return node == null ? 0 : node.count;
+    }
+
+    private static void update(Entry node) {
+        node.count = 1 + count(node.left) + count(node.right);
+    }
+
+    private static class Entry {
+        final Specialist specialist;
+        final long sequence;
+        // приоритет узла в дереве по зарплате - перемешанный финализатором MurmurHash3 порядковый номер
+        final int priority;
+        int salary;
+        Speciality speciality;
+        Entry left;
+        Entry right;
+        int count = 1;
+
+        Entry(Specialist specialist, long sequence, int salary, Speciality speciality) {
+            this.specialist = specialist;
+            this.sequence = sequence;
+            this.salary = salary;
+            this.speciality = speciality;
+            long h = sequence;
+            h ^= h >>> 33;
+            h *= 0xFF51AFD7ED558CCDL;
+            h ^= h >>> 33;
+            h *= 0xC4CEB9FE1A85EC53L;
+            h ^= h >>> 33;
+            this.priority = (int) h;
+        }
+    }
+}
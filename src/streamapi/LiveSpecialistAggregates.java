@@ -0,0 +1,388 @@
+package streamapi;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Агрегаты по специальностям и разбиение по порогу зарплаты 1 млн, которые обновляются инкрементально
+ * при добавлении, удалении и изменении специалистов, вместо пересборки
+ * {@link StreamAPI#groupBySpeciality(List)} и {@link StreamAPI#groupBySalaryOver1MillOrNot(List)} на каждый вызов.
+ * <p>
+ * Каждая группа хранит счетчик и сумму, разбитые на полосы по потокам писателей, и мультимножество зарплат
+ * на {@link ConcurrentSkipListMap} для min/max, участники - конкурентные множества по ссылке. Запись безопасна
+ * из нескольких потоков: изменения одного специалиста упорядочены внутренней блокировкой, выбранной по ссылке
+ * на специалиста, а в группе поток захватывает только {@link StampedLock} своей полосы, поэтому писатели
+ * из разных потоков не ждут друг друга, в том числе в общих группах разбиения по 1 млн. Статистика группы
+ * читается без блокировок по штампам всех полос (как seqlock) и перечитывается, если группа изменилась
+ * во время чтения, поэтому количество, сумма, min и max всегда согласованы. Разные группы читаются независимо
+ */
+public class LiveSpecialistAggregates implements SpecialistListener {
+    private static final int SALARY_THRESHOLD = 1000000;
+    private static final int LOCK_STRIPES = 64;
+    // полосы счетчиков группы: степень двойки не меньше количества ядер, но не больше 64
+    private static final int STRIPES =
+            Math.min(64, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+    private static final int OPTIMISTIC_READS = 8;
+
+    // учтенные значения полей каждого специалиста, по ним агрегаты откатываются при изменении
+    private final Map<Identity, Included> members = new ConcurrentHashMap<>();
+    private final EnumMap<Speciality, Group> groups = new EnumMap<>(Speciality.class);
+    private final Group overMill = new Group();
+    private final Group underMill = new Group();
+    // блокировки изменений специалистов, не видны вызывающему коду в отличие от монитора самого специалиста
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public LiveSpecialistAggregates() {
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+        for (Speciality speciality : Speciality.values()) {
+            groups.put(speciality, new Group());
+        }
+    }
+
+    public LiveSpecialistAggregates(Collection<Specialist> specialists) {
+        this();
+        specialists.forEach(this::add);
+    }
+
+    /**
+     * @param specialist специалист
+     * @return false, если специалист (та же ссылка) уже учтен
+     */
+    public boolean add(Specialist specialist) {
+        Objects.requireNonNull(specialist.getSpeciality(), "speciality");
+        synchronized (lockFor(specialist)) {
+            Identity identity = new Identity(specialist);
+            if (members.containsKey(identity)) return false;
+            specialist.addListener(this);
+            Included included = new Included(specialist.getSpeciality(), specialist.getSalary());
+            members.put(identity, included);
+            include(specialist, included);
+            return true;
+        }
+    }
+
+    /**
+     * @param specialist специалист
+     * @return true, если специалист (та же ссылка) был учтен
+     */
+    public boolean remove(Specialist specialist) {
+        synchronized (lockFor(specialist)) {
+            Included included = members.remove(new Identity(specialist));
+            if (included == null) return false;
+            specialist.removeListener(this);
+            exclude(specialist, included);
+            return true;
+        }
+    }
+
+    @Override
+    public void salaryChanged(Specialist specialist, int oldSalary) {
+        update(specialist);
+    }
+
+    @Override
+    public void specialityChanged(Specialist specialist, Speciality oldSpeciality) {
+        update(specialist);
+    }
+
+    /**
+     * @return количество специалистов с указанной специальностью
+     */
+    public long count(Speciality speciality) {
+        return group(speciality).count();
+    }
+
+    /**
+     * @return сумма зарплат специалистов с указанной специальностью
+     */
+    public long salarySum(Speciality speciality) {
+        return group(speciality).salarySum();
+    }
+
+    /**
+     * @return минимальная зарплата по специальности или пусто, если специалистов нет
+     */
+    public OptionalInt minSalary(Speciality speciality) {
+        return group(speciality).min();
+    }
+
+    /**
+     * @return максимальная зарплата по специальности или пусто, если специалистов нет
+     */
+    public OptionalInt maxSalary(Speciality speciality) {
+        return group(speciality).max();
+    }
+
+    /**
+     * @return статистика по зарплатам специальности
+     */
+    public IntSummaryStatistics statistics(Speciality speciality) {
+        return group(speciality).statistics();
+    }
+
+    /**
+     * @return снимок участников специальности, порядок не определен
+     */
+    public List<Specialist> members(Speciality speciality) {
+        return group(speciality).snapshot();
+    }
+
+    /**
+     * Аналог {@link StreamAPI#groupBySpeciality(List)}, в мапе только специальности, у которых есть специалисты,
+     * порядок специалистов в списках не определен
+     */
+    public Map<Speciality, List<Specialist>> groupBySpeciality() {
+        Map<Speciality, List<Specialist>> result = new EnumMap<>(Speciality.class);
+        groups.forEach((speciality, group) -> {
+            List<Specialist> snapshot = group.snapshot();
+            if (!snapshot.isEmpty()) result.put(speciality, snapshot);
+        });
+        return result;
+    }
+
+    /**
+     * Аналог {@link StreamAPI#groupBySalaryOver1MillOrNot(List)}, порядок специалистов в списках не определен
+     */
+    public Map<Boolean, List<Specialist>> groupBySalaryOver1MillOrNot() {
+        Map<Boolean, List<Specialist>> result = new HashMap<>();
+        result.put(false, underMill.snapshot());
+        result.put(true, overMill.snapshot());
+        return result;
+    }
+
+    /**
+     * @return количество специалистов с зарплатой от 1 млн (true) и меньше (false)
+     */
+    public Map<Boolean, Long> countBySalaryOver1MillOrNot() {
+        Map<Boolean, Long> result = new HashMap<>();
+        result.put(false, underMill.count());
+        result.put(true, overMill.count());
+        return result;
+    }
+
+    /**
+     * Откат учтенных значений и учет текущих: не зависит от того, успел ли сеттер из другого потока
+     * изменить поле до добавления специалиста
+     */
+    private void update(Specialist specialist) {
+        synchronized (lockFor(specialist)) {
+            Included included = members.get(new Identity(specialist));
+            if (included == null) return;
+            exclude(specialist, included);
+            included.speciality = specialist.getSpeciality();
+            included.salary = specialist.getSalary();
+            include(specialist, included);
+        }
+    }
+
+    /**
+     * Полоса счетчиков по потоку: запись одного потока всегда попадает в одну полосу, разные потоки -
+     * как правило, в разные
+     */
+    private static int stripeIndex() {
+        long mixed = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+        return (int) (mixed >>> 32) & (STRIPES - 1);
+    }
+
+    private Object lockFor(Specialist specialist) {
+        return locks[System.identityHashCode(specialist) & (LOCK_STRIPES - 1)];
+    }
+
+    private Group group(Speciality speciality) {
+        return groups.get(Objects.requireNonNull(speciality));
+    }
+
+    private void include(Specialist specialist, Included included) {
+        if (included.speciality != null) groups.get(included.speciality).add(specialist, included.salary);
+        (included.salary >= SALARY_THRESHOLD ? overMill : underMill).add(specialist, included.salary);
+    }
+
+    private void exclude(Specialist specialist, Included included) {
+        if (included.speciality != null) groups.get(included.speciality).remove(specialist, included.salary);
+        (included.salary >= SALARY_THRESHOLD ? overMill : underMill).remove(specialist, included.salary);
+    }
+
+    private static class Group {
+        final Stripe[] stripes = new Stripe[STRIPES];
+        // мультимножество зарплат: зарплата -> количество специалистов с такой зарплатой
+        final ConcurrentSkipListMap<Integer, Integer> salaries = new ConcurrentSkipListMap<>();
+        final Set<Identity> members = ConcurrentHashMap.newKeySet();
+
+        Group() {
+            for (int i = 0; i < stripes.length; i++) {
+                stripes[i] = new Stripe();
+            }
+        }
+
+        void add(Specialist specialist, int salary) {
+            Stripe stripe = stripes[stripeIndex()];
+            long stamp = stripe.lock.writeLock();
+            try {
+                salaries.merge(salary, 1, Integer::sum);
+                members.add(new Identity(specialist));
+                stripe.salarySum += salary;
+                stripe.count++;
+            } finally {
+                stripe.lock.unlockWrite(stamp);
+            }
+        }
+
+        void remove(Specialist specialist, int salary) {
+            Stripe stripe = stripes[stripeIndex()];
+            long stamp = stripe.lock.writeLock();
+            try {
+                stripe.count--;
+                stripe.salarySum -= salary;
+                members.remove(new Identity(specialist));
+                salaries.computeIfPresent(salary, (key, value) -> value == 1 ? null : value - 1);
+            } finally {
+                stripe.lock.unlockWrite(stamp);
+            }
+        }
+
+        long count() {
+            return totals(false).count;
+        }
+
+        long salarySum() {
+            return totals(false).salarySum;
+        }
+
+        OptionalInt min() {
+            Map.Entry<Integer, Integer> entry = salaries.firstEntry();
+            return entry == null ? OptionalInt.empty() : OptionalInt.of(entry.getKey());
+        }
+
+        OptionalInt max() {
+            Map.Entry<Integer, Integer> entry = salaries.lastEntry();
+            return entry == null ? OptionalInt.empty() : OptionalInt.of(entry.getKey());
+        }
+
+        IntSummaryStatistics statistics() {
+            Totals totals = totals(true);
+            if (totals.first == null || totals.last == null || totals.count <= 0) return new IntSummaryStatistics();
+            return new IntSummaryStatistics(totals.count, totals.first.getKey(), totals.last.getKey(), totals.salarySum);
+        }
+
+        /**
+         * Штампы всех полос берутся до чтения значений и проверяются после: если ни одна полоса не менялась,
+         * был момент, когда все прочитанные значения были актуальны одновременно. Если писатели мешают
+         * {@value #OPTIMISTIC_READS} раз подряд, значения читаются под блокировками чтения всех полос
+         *
+         * @param range читать ли min и max
+         */
+        Totals totals(boolean range) {
+            Totals totals = new Totals();
+            long[] stamps = new long[stripes.length];
+            for (int attempt = 0; attempt < OPTIMISTIC_READS; attempt++) {
+                if (tryOptimisticRead(stamps)) {
+                    totals.read(this, range);
+                    if (validate(stamps)) return totals;
+                }
+                Thread.onSpinWait();
+            }
+            // блокировки берутся в одном порядке, писатель держит только одну полосу - взаимной блокировки нет
+            for (int i = 0; i < stripes.length; i++) {
+                stamps[i] = stripes[i].lock.readLock();
+            }
+            try {
+                totals.read(this, range);
+                return totals;
+            } finally {
+                for (int i = 0; i < stripes.length; i++) {
+                    stripes[i].lock.unlockRead(stamps[i]);
+                }
+            }
+        }
+
+        private boolean tryOptimisticRead(long[] stamps) {
+            for (int i = 0; i < stripes.length; i++) {
+                if ((stamps[i] = stripes[i].lock.tryOptimisticRead()) == 0) return false;
+            }
+            return true;
+        }
+
+        private boolean validate(long[] stamps) {
+            for (int i = 0; i < stripes.length; i++) {
+                if (!stripes[i].lock.validate(stamps[i])) return false;
+            }
+            return true;
+        }
+
+        List<Specialist> snapshot() {
+            List<Specialist> result = new ArrayList<>(members.size());
+            for (Identity identity : members) {
+                result.add(identity.specialist);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Часть счетчиков группы, в которую пишут потоки с одним номером полосы.
+     * Запись под блокировкой записи полосы, чтение оптимистичное с проверкой штампа
+     */
+    private static class Stripe {
+        final StampedLock lock = new StampedLock();
+        long count;
+        long salarySum;
+    }
+
+    /**
+     * Значения группы, прочитанные в {@link Group#totals(boolean)}
+     */
+    private static class Totals {
+        long count;
+        long salarySum;
+        Map.Entry<Integer, Integer> first;
+        Map.Entry<Integer, Integer> last;
+
+        void read(Group group, boolean range) {
+            count = 0;
+            salarySum = 0;
+            for (Stripe stripe : group.stripes) {
+                count += stripe.count;
+                salarySum += stripe.salarySum;
+            }
+            if (range) {
+                first = group.salaries.firstEntry();
+                last = group.salaries.lastEntry();
+            }
+        }
+    }
+
+    private static class Included {
+        Speciality speciality;
+        int salary;
+
+        Included(Speciality speciality, int salary) {
+            this.speciality = speciality;
+            this.salary = salary;
+        }
+    }
+
+    /**
+     * Ключ по ссылке: equals/hashCode специалиста зависят от изменяемых полей и не подходят для хеш-таблиц
+     */
+    private static class Identity {
+        final Specialist specialist;
+
+        Identity(Specialist specialist) {
+            this.specialist = specialist;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Identity && ((Identity) o).specialist == specialist;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(specialist);
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package streamapi;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Список специалистов вне кучи: записи фиксированной длины и имена в UTF-8 хранятся в direct ByteBuffer.
+ * Вместо объекта на каждую строку выдаются переиспользуемые представления {@link SpecialistView},
+ * совместимые с {@link Specialist}: фильтры и агрегации проходят по записям через одно представление,
+ * а имя декодируется только при вызове {@link SpecialistView#getName()}. Представление живет только
+ * во время вызова условия или действия, методы, возвращающие специалистов, возвращают отдельные копии в куче.
+ * Размер каждого буфера ограничен 2 ГБ, то есть не больше 134 млн записей и 2 ГБ имен.
+ * <p>
+ * У каждой записи свое место в буфере имен: новое имя, которое помещается в него, записывается на старое место,
+ * более длинное дописывается в конец буфера, а старое место освобождается. Когда освобожденные места занимают
+ * больше половины буфера имен (и не меньше {@value #MIN_COMPACTION_WASTE} байт), имена переписываются в новый
+ * буфер без промежутков. Добавление и изменение специалистов не потокобезопасно, чтение из нескольких потоков
+ * допускается, пока нет изменений
+ */
+public class OffHeapRoster {
+    private static final int RECORD_SIZE = 16;
+    private static final int SALARY = 0;
+    private static final int SPECIALITY = 4;
+    private static final int NAME_NULL = 5;
+    private static final int NAME_LENGTH = 6;
+    private static final int NAME_OFFSET = 8;
+    private static final int NAME_CAPACITY = 12;
+    private static final int MAX_NAME_LENGTH = 0xFFFF;
+    private static final int MIN_COMPACTION_WASTE = 1 << 16;
+    private static final Speciality[] SPECIALITIES = Speciality.values();
+
+    private ByteBuffer records;
+    private ByteBuffer names;
+    private int size;
+    private int namesLength;
+    // байты буфера имен, занятые местами записей, остальное до namesLength - освобожденные места
+    private int liveNamesLength;
+
+    public OffHeapRoster() {
+        this(16);
+    }
+
+    /**
+     * @param initialCapacity начальная емкость в записях
+     */
+    public OffHeapRoster(int initialCapacity) {
+        this.records = allocate((long) Math.max(1, initialCapacity) * RECORD_SIZE);
+        this.names = allocate(Math.min(Integer.MAX_VALUE, (long) Math.max(1, initialCapacity) * 16));
+    }
+
+    public static OffHeapRoster of(List<Specialist> specialists) {
+        OffHeapRoster roster = new OffHeapRoster(specialists.size());
+        specialists.forEach(roster::add);
+        return roster;
+    }
+
+    /**
+     * @param specialist специалист, значения полей копируются в буфер
+     * @return номер записи
+     */
+    public int add(Specialist specialist) {
+        if (size == Integer.MAX_VALUE / RECORD_SIZE) throw new IllegalStateException("roster is full");
+        records = ensureCapacity(records, (long) (size + 1) * RECORD_SIZE);
+        int row = size++;
+        int index = row * RECORD_SIZE;
+        records.putInt(index + SALARY, specialist.getSalary());
+        writeSpeciality(index, specialist.getSpeciality());
+        clearName(index);
+        writeName(index, specialist.getName());
+        return row;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param row номер записи
+     * @return специалист в куче с значениями полей записи, изменения копии в буфер не попадают
+     */
+    public Specialist get(int row) {
+        SpecialistView view = new SpecialistView(this);
+        view.moveTo(row);
+        return view.copy();
+    }
+
+    /**
+     * @param row        номер записи
+     * @param specialist специалист, значения полей копируются в запись
+     */
+    public void set(int row, Specialist specialist) {
+        Objects.checkIndex(row, size);
+        int index = row * RECORD_SIZE;
+        // имя первым: слишком длинное имя отклоняется до изменения записи
+        writeName(index, specialist.getName());
+        records.putInt(index + SALARY, specialist.getSalary());
+        writeSpeciality(index, specialist.getSpeciality());
+    }
+
+    /**
+     * Обход всех записей через одно представление, которое перемещается с записи на запись.
+     * Представление нельзя сохранять после вызова действия и передавать в контейнеры, которые подписываются
+     * на изменения специалистов ({@link IndexedRoster}, {@link LiveSpecialistAggregates}), для этого используется
+     * {@link SpecialistView#copy()}. Сеттеры представления записывают значения в буфер
+     *
+     * @param action действие над представлением записи
+     */
+    public void forEach(Consumer<? super SpecialistView> action) {
+        SpecialistView view = new SpecialistView(this);
+        for (int row = 0; row < size; row++) {
+            view.moveTo(row);
+            action.accept(view);
+        }
+    }
+
+    /**
+     * @param predicate условие, проверяется на представлении записи
+     * @return копии специалистов, удовлетворяющих условию
+     */
+    public List<Specialist> filter(Predicate<? super Specialist> predicate) {
+        List<Specialist> result = new ArrayList<>();
+        SpecialistView view = new SpecialistView(this);
+        for (int row = 0; row < size; row++) {
+            view.moveTo(row);
+            if (predicate.test(view)) result.add(view.copy());
+        }
+        return result;
+    }
+
+    /**
+     * @param predicate условие, проверяется на представлении записи
+     * @return количество записей, удовлетворяющих условию
+     */
+    public long count(Predicate<? super Specialist> predicate) {
+        long count = 0;
+        SpecialistView view = new SpecialistView(this);
+        for (int row = 0; row < size; row++) {
+            view.moveTo(row);
+            if (predicate.test(view)) count++;
+        }
+        return count;
+    }
+
+    /**
+     * @param predicate условие, проверяется на представлении записи
+     * @return true, если хоть одна запись удовлетворяет условию
+     */
+    public boolean anyMatch(Predicate<? super Specialist> predicate) {
+        SpecialistView view = new SpecialistView(this);
+        for (int row = 0; row < size; row++) {
+            view.moveTo(row);
+            if (predicate.test(view)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Аналог {@link StreamAPI#filterSpecialistsBySpeciality(List, Speciality)}, объекты создаются только для подходящих записей
+     */
+    public List<Specialist> filterSpecialistsBySpeciality(Speciality speciality) {
+        List<Specialist> result = new ArrayList<>();
+        if (speciality == null) return result;
+        SpecialistView view = new SpecialistView(this);
+        for (int row = 0; row < size; row++) {
+            if (records.get(row * RECORD_SIZE + SPECIALITY) == speciality.ordinal()) {
+                view.moveTo(row);
+                result.add(view.copy());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Аналог {@link StreamAPI#countSpecialistWithSalaryOverMill(List)}
+     */
+    public long countSpecialistWithSalaryOverMill() {
+        long count = 0;
+        for (int row = 0; row < size; row++) {
+            if (records.getInt(row * RECORD_SIZE + SALARY) >= 1000000) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Аналог {@link StreamAPI#anyMatchIsTeamHasBusinessAnalyst(List)}
+     */
+    public boolean anyMatchIsTeamHasBusinessAnalyst() {
+        for (int row = 0; row < size; row++) {
+            if (records.get(row * RECORD_SIZE + SPECIALITY) == Speciality.BUSINESS_ANALYST.ordinal()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Аналог {@link StreamAPI#getIntSummaryStatistics(List)}
+     */
+    public IntSummaryStatistics getIntSummaryStatistics() {
+        IntSummaryStatistics statistics = new IntSummaryStatistics();
+        for (int row = 0; row < size; row++) {
+            statistics.accept(records.getInt(row * RECORD_SIZE + SALARY));
+        }
+        return statistics;
+    }
+
+    private void writeSpeciality(int index, Speciality speciality) {
+        records.put(index + SPECIALITY, (byte) (speciality == null ? -1 : speciality.ordinal()));
+    }
+
+    /**
+     * @return байты буфера имен, занятые освобожденными местами и еще не возвращенные сжатием
+     */
+    public int wastedNameBytes() {
+        return namesLength - liveNamesLength;
+    }
+
+    /**
+     * Перенос имен в новый буфер без освобожденных мест, место каждой записи сжимается до длины ее имени
+     */
+    public void compactNames() {
+        ByteBuffer compacted = allocate(Math.max(1, liveNamesLength));
+        int length = 0;
+        for (int index = 0; index < size * RECORD_SIZE; index += RECORD_SIZE) {
+            int nameLength = records.get(index + NAME_NULL) != 0 ? 0 : Short.toUnsignedInt(records.getShort(index + NAME_LENGTH));
+            compacted.put(length, names, records.getInt(index + NAME_OFFSET), nameLength);
+            records.putInt(index + NAME_OFFSET, length);
+            records.putShort(index + NAME_CAPACITY, (short) nameLength);
+            length += nameLength;
+        }
+        names = compacted;
+        namesLength = length;
+        liveNamesLength = length;
+    }
+
+    private void clearName(int index) {
+        records.put(index + NAME_NULL, (byte) 1);
+        records.putShort(index + NAME_LENGTH, (short) 0);
+        records.putInt(index + NAME_OFFSET, 0);
+        records.putShort(index + NAME_CAPACITY, (short) 0);
+    }
+
+    /**
+     * Имя записывается на место записи, если помещается в него, иначе место освобождается и имя дописывается
+     * в конец буфера имен. null сохраняет место для следующего имени
+     */
+    private void writeName(int index, String name) {
+        if (name == null) {
+            records.put(index + NAME_NULL, (byte) 1);
+            records.putShort(index + NAME_LENGTH, (short) 0);
+            return;
+        }
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("name is longer than " + MAX_NAME_LENGTH + " bytes: " + name);
+        }
+        int capacity = Short.toUnsignedInt(records.getShort(index + NAME_CAPACITY));
+        if (bytes.length > capacity) {
+            // запись без места не переносится при сжатии
+            clearName(index);
+            liveNamesLength -= capacity;
+            int wasted = namesLength - liveNamesLength;
+            if (wasted >= MIN_COMPACTION_WASTE && wasted > namesLength / 2) compactNames();
+            names = ensureCapacity(names, (long) namesLength + bytes.length);
+            records.putInt(index + NAME_OFFSET, namesLength);
+            records.putShort(index + NAME_CAPACITY, (short) bytes.length);
+            namesLength += bytes.length;
+            liveNamesLength += bytes.length;
+        }
+        names.put(records.getInt(index + NAME_OFFSET), bytes);
+        records.put(index + NAME_NULL, (byte) 0);
+        records.putShort(index + NAME_LENGTH, (short) bytes.length);
+    }
+
+    private String readName(int index) {
+        if (records.get(index + NAME_NULL) != 0) return null;
+        byte[] bytes = new byte[Short.toUnsignedInt(records.getShort(index + NAME_LENGTH))];
+        names.get(records.getInt(index + NAME_OFFSET), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static ByteBuffer allocate(long capacity) {
+        if (capacity > Integer.MAX_VALUE) throw new IllegalStateException("off-heap buffer is limited to 2 GB");
+        return ByteBuffer.allocateDirect((int) capacity).order(ByteOrder.nativeOrder());
+    }
+
+    private static ByteBuffer ensureCapacity(ByteBuffer buffer, long required) {
+        if (required <= buffer.capacity()) return buffer;
+        ByteBuffer grown = allocate(Math.min(Integer.MAX_VALUE, Math.max(required, (long) buffer.capacity() * 2)));
+        grown.put(0, buffer, 0, buffer.capacity());
+        return grown;
+    }
+
+    /**
+     * Переиспользуемое представление записи {@link OffHeapRoster}, совместимое с {@link Specialist}.
+     * Поля читаются из буфера при каждом вызове геттера, имя декодируется лениво и запоминается до перемещения
+     * на другую запись. Сеттеры записывают значения в буфер. Представление равно специалисту с теми же значениями
+     * полей, в том числе своей копии. Подписка на изменения не поддерживается: представление перемещается
+     * по записям, и подписчик, который хранит его по ссылке, видел бы изменения полей без уведомлений
+     */
+    public static class SpecialistView extends Specialist {
+        private final OffHeapRoster roster;
+        private int row = -1;
+        private int index;
+        private String decodedName;
+        private boolean nameDecoded;
+
+        private SpecialistView(OffHeapRoster roster) {
+            super(null, 0, null);
+            this.roster = roster;
+        }
+
+        /**
+         * @param row номер записи, на которую устанавливается представление
+         */
+        void moveTo(int row) {
+            Objects.checkIndex(row, roster.size);
+            this.row = row;
+            this.index = row * RECORD_SIZE;
+            this.decodedName = null;
+            this.nameDecoded = false;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        /**
+         * @return специалист в куче с теми же значениями полей
+         */
+        public Specialist copy() {
+            return new Specialist(getName(), getSalary(), getSpeciality());
+        }
+
+        @Override
+        public String getName() {
+            if (!nameDecoded) {
+                decodedName = roster.readName(index);
+                nameDecoded = true;
+            }
+            return decodedName;
+        }
+
+        @Override
+        public void setName(String name) {
+            roster.writeName(index, name);
+            decodedName = name;
+            nameDecoded = true;
+        }
+
+        @Override
+        public int getSalary() {
+            return roster.records.getInt(index + SALARY);
+        }
+
+        @Override
+        public void setSalary(int salary) {
+            roster.records.putInt(index + SALARY, salary);
+        }
+
+        @Override
+        public Speciality getSpeciality() {
+            byte ordinal = roster.records.get(index + SPECIALITY);
+            return ordinal < 0 ? null : SPECIALITIES[ordinal];
+        }
+
+        @Override
+        public void setSpeciality(Speciality speciality) {
+            roster.writeSpeciality(index, speciality);
+        }
+
+        @Override
+        public void addListener(SpecialistListener listener) {
+            throw new UnsupportedOperationException("off-heap views do not support listeners");
+        }
+    }
+}
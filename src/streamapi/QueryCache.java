@@ -0,0 +1,282 @@
+package streamapi;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Список специалистов с кешем результатов запросов {@link StreamAPI}.
+ * <p>
+ * Результат запроса запоминается вместе с версией списка, на которой он посчитан. Версия увеличивается
+ * при добавлении и удалении специалистов и при вызове сеттеров специалистов списка ({@link SpecialistListener}),
+ * результат со старой версией считается промахом и пересчитывается. Кеш ограничен по количеству запросов,
+ * вытесняются давно не использованные (LRU).
+ * <p>
+ * Потокобезопасен: запросы выполняются под блокировкой чтения списка, изменения списка - под блокировкой записи.
+ * Одновременные промахи по одному запросу ждут одного вычисления. Результаты общие для всех вызывающих,
+ * поэтому методы-аналоги StreamAPI возвращают неизменяемые коллекции или копии
+ */
+public class QueryCache implements SpecialistListener {
+    private final List<Specialist> roster = new ArrayList<>();
+    private final List<Specialist> view = Collections.unmodifiableList(roster);
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicLong version = new AtomicLong();
+    private final Map<Object, Entry> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * @param maxEntries максимальное количество запомненных запросов
+     */
+    public QueryCache(int maxEntries) {
+        if (maxEntries < 1) throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+                boolean evict = size() > maxEntries;
+                if (evict) evictions.increment();
+                return evict;
+            }
+        };
+    }
+
+    public QueryCache(int maxEntries, Collection<Specialist> specialists) {
+        this(maxEntries);
+        addAll(specialists);
+    }
+
+    public void add(Specialist specialist) {
+        addAll(List.of(specialist));
+    }
+
+    public void addAll(Collection<Specialist> specialists) {
+        lock.writeLock().lock();
+        try {
+            for (Specialist specialist : specialists) {
+                specialist.addListener(this);
+                roster.add(specialist);
+            }
+            invalidate();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param specialist специалист, удаляется первое вхождение той же ссылки
+     * @return true, если специалист был в списке
+     */
+    public boolean remove(Specialist specialist) {
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < roster.size(); i++) {
+                if (roster.get(i) == specialist) {
+                    roster.remove(i);
+                    specialist.removeListener(this);
+                    invalidate();
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return копия списка
+     */
+    public List<Specialist> snapshot() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(roster);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return текущая версия списка
+     */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * Результат запроса из кеша или вычисленный на текущей версии списка
+     *
+     * @param key   ключ запроса, равные ключи (equals) должны означать одинаковые запросы
+     * @param query запрос, получает неизменяемое представление списка
+     * @return результат запроса, общий для всех вызывающих до изменения списка
+     */
+    @SuppressWarnings("unchecked")
+    public <R> R get(Object key, Function<? super List<Specialist>, ? extends R> query) {
+        Objects.requireNonNull(key);
+        long current = version.get();
+        Entry entry;
+        boolean owner = false;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry == null || entry.version != current) {
+                entry = new Entry(current);
+                entries.put(key, entry);
+                owner = true;
+            }
+        }
+        if (!owner) {
+            hits.increment();
+            return (R) join(entry.result);
+        }
+        misses.increment();
+        lock.readLock().lock();
+        try {
+            R result = query.apply(view);
+            entry.result.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            entry.result.completeExceptionally(e);
+            synchronized (entries) {
+                entries.remove(key, entry);
+            }
+            throw e;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Аналог {@link StreamAPI#groupBySpeciality(List)}, мапа и списки неизменяемые
+     */
+    public Map<Speciality, List<Specialist>> groupBySpeciality() {
+        return get(new Key("groupBySpeciality", null), specialists -> {
+            Map<Speciality, List<Specialist>> result = new EnumMap<>(Speciality.class);
+            StreamAPI.groupBySpeciality(specialists).forEach((speciality, list) ->
+                    result.put(speciality, Collections.unmodifiableList(list)));
+            return Collections.unmodifiableMap(result);
+        });
+    }
+
+    /**
+     * Аналог {@link StreamAPI#filterSpecialistsBySpeciality(List, Speciality)}, список неизменяемый
+     */
+    public List<Specialist> filterSpecialistsBySpeciality(Speciality speciality) {
+        return get(new Key("filterSpecialistsBySpeciality", speciality), specialists ->
+                Collections.unmodifiableList(StreamAPI.filterSpecialistsBySpeciality(specialists, speciality)));
+    }
+
+    /**
+     * Аналог {@link StreamAPI#getIntSummaryStatistics(List)}, возвращается копия
+     */
+    public IntSummaryStatistics getIntSummaryStatistics() {
+        IntSummaryStatistics cached = get(new Key("getIntSummaryStatistics", null), StreamAPI::getIntSummaryStatistics);
+        return new IntSummaryStatistics(cached.getCount(), cached.getMin(), cached.getMax(), cached.getSum());
+    }
+
+    /**
+     * Сброс всех результатов
+     */
+    public void invalidate() {
+        version.incrementAndGet();
+        invalidations.increment();
+    }
+
+    @Override
+    public void nameChanged(Specialist specialist, String oldName) {
+        invalidate();
+    }
+
+    @Override
+    public void salaryChanged(Specialist specialist, int oldSalary) {
+        invalidate();
+    }
+
+    @Override
+    public void specialityChanged(Specialist specialist, Speciality oldSpeciality) {
+        invalidate();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return количество результатов, вытесненных из-за ограничения размера
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return количество изменений версии списка
+     */
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    public double getHitRate() {
+        long hits = getHits();
+        long total = hits + getMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static Object join(CompletableFuture<Object> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw e;
+        }
+    }
+
+    private static class Entry {
+        final long version;
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        Entry(long version) {
+            this.version = version;
+        }
+    }
+
+    /**
+     * Ключ запросов-аналогов StreamAPI: имя метода и аргумент
+     */
+    private static class Key {
+        final String method;
+        final Object argument;
+
+        Key(String method, Object argument) {
+            this.method = method;
+            this.argument = argument;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return method.equals(key.method) && Objects.equals(argument, key.argument);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * method.hashCode() + Objects.hashCode(argument);
+        }
+    }
+}
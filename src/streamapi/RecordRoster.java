@@ -0,0 +1,270 @@
+package streamapi;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Список {@link SpecialistRecord} с копированием при записи.
+ * <p>
+ * Читатели без блокировок получают неизменяемый снимок, который не меняется после получения и подходит
+ * для параллельных стримов. Писатели выполняются по одному: каждое изменение или пакет изменений
+ * ({@link #update(Consumer)}) копирует массив и публикует новый снимок вместе с номером версии
+ * одной записью volatile-поля, поэтому читатели никогда не видят пакет применённым частично
+ * или содержимое с версией от другого изменения
+ */
+public class RecordRoster {
+    private static final SpecialistRecord[] EMPTY = new SpecialistRecord[0];
+
+    private volatile Snapshot state = new Snapshot(EMPTY, 0);
+
+    public RecordRoster() {
+    }
+
+    public RecordRoster(Collection<SpecialistRecord> records) {
+        this.state = new Snapshot(toArray(records), 0);
+    }
+
+    /**
+     * @param specialists специалисты
+     * @return список с неизменяемыми копиями специалистов
+     */
+    public static RecordRoster of(List<Specialist> specialists) {
+        SpecialistRecord[] records = new SpecialistRecord[specialists.size()];
+        int i = 0;
+        // обход итератором: get(i) у LinkedList - O(n)
+        for (Specialist specialist : specialists) {
+            records[i++] = SpecialistRecord.of(specialist);
+        }
+        RecordRoster roster = new RecordRoster();
+        roster.state = new Snapshot(records, 0);
+        return roster;
+    }
+
+    /**
+     * @return неизменяемый снимок списка
+     */
+    public List<SpecialistRecord> snapshot() {
+        return state.getRecords();
+    }
+
+    /**
+     * @return количество опубликованных изменений
+     */
+    public long version() {
+        return state.version;
+    }
+
+    /**
+     * @return неизменяемый снимок списка вместе с версией, к которой он относится
+     */
+    public Snapshot current() {
+        return state;
+    }
+
+    public int size() {
+        return state.records.length;
+    }
+
+    public SpecialistRecord get(int index) {
+        return state.records[index];
+    }
+
+    public synchronized void add(SpecialistRecord record) {
+        Objects.requireNonNull(record);
+        SpecialistRecord[] current = state.records;
+        SpecialistRecord[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = record;
+        publish(updated);
+    }
+
+    public synchronized void addAll(Collection<SpecialistRecord> added) {
+        SpecialistRecord[] current = state.records;
+        SpecialistRecord[] tail = toArray(added);
+        SpecialistRecord[] updated = Arrays.copyOf(current, current.length + tail.length);
+        System.arraycopy(tail, 0, updated, current.length, tail.length);
+        publish(updated);
+    }
+
+    /**
+     * @return предыдущая запись
+     */
+    public synchronized SpecialistRecord set(int index, SpecialistRecord record) {
+        Objects.requireNonNull(record);
+        SpecialistRecord[] current = state.records;
+        SpecialistRecord old = current[index];
+        if (old != record) {
+            SpecialistRecord[] updated = current.clone();
+            updated[index] = record;
+            publish(updated);
+        }
+        return old;
+    }
+
+    /**
+     * @return количество удаленных записей
+     */
+    public synchronized int removeIf(Predicate<? super SpecialistRecord> filter) {
+        SpecialistRecord[] current = state.records;
+        SpecialistRecord[] updated = new SpecialistRecord[current.length];
+        int size = 0;
+        for (SpecialistRecord record : current) {
+            if (!filter.test(record)) updated[size++] = record;
+        }
+        if (size != current.length) publish(Arrays.copyOf(updated, size));
+        return current.length - size;
+    }
+
+    /**
+     * Замена каждой записи результатом функции, неизмененные записи (та же ссылка) переиспользуются
+     *
+     * @return количество измененных записей
+     */
+    public synchronized int replaceAll(UnaryOperator<SpecialistRecord> operator) {
+        SpecialistRecord[] current = state.records;
+        SpecialistRecord[] updated = null;
+        int changed = 0;
+        for (int i = 0; i < current.length; i++) {
+            SpecialistRecord record = Objects.requireNonNull(operator.apply(current[i]));
+            if (record != current[i]) {
+                if (updated == null) updated = current.clone();
+                updated[i] = record;
+                changed++;
+            }
+        }
+        if (updated != null) publish(updated);
+        return changed;
+    }
+
+    /**
+     * Пакет изменений над копией списка, публикуется целиком после успешного завершения.
+     * При исключении в пакете список не меняется
+     *
+     * @param changes изменения
+     */
+    public synchronized void update(Consumer<? super Batch> changes) {
+        Batch batch = new Batch(state.records);
+        changes.accept(batch);
+        if (batch.modified) publish(batch.records.toArray(EMPTY));
+    }
+
+    /**
+     * Замена содержимого массивом, вычисленным по текущему содержимому под блокировкой писателей.
+     * Функция не должна изменять переданный массив, null - без изменений
+     *
+     * @return версия после изменения
+     */
+    synchronized long transform(UnaryOperator<SpecialistRecord[]> function) {
+        SpecialistRecord[] updated = function.apply(state.records);
+        if (updated != null) publish(updated);
+        return state.version;
+    }
+
+    /**
+     * @return копия в изменяемых специалистах
+     */
+    public List<Specialist> toSpecialists() {
+        SpecialistRecord[] current = state.records;
+        List<Specialist> result = new ArrayList<>(current.length);
+        for (SpecialistRecord record : current) {
+            result.add(record.toSpecialist());
+        }
+        return result;
+    }
+
+    /**
+     * Вызывается только под блокировкой писателей
+     */
+    private void publish(SpecialistRecord[] updated) {
+        state = new Snapshot(updated, state.version + 1);
+    }
+
+    private static SpecialistRecord[] toArray(Collection<SpecialistRecord> records) {
+        SpecialistRecord[] result = records.toArray(EMPTY);
+        for (SpecialistRecord record : result) {
+            Objects.requireNonNull(record);
+        }
+        return result;
+    }
+
+    /**
+     * Содержимое списка и номер его версии
+     */
+    public static final class Snapshot {
+        private final SpecialistRecord[] records;
+        private final long version;
+
+        private Snapshot(SpecialistRecord[] records, long version) {
+            this.records = records;
+            this.version = version;
+        }
+
+        /**
+         * @return неизменяемый список записей
+         */
+        public List<SpecialistRecord> getRecords() {
+            return Collections.unmodifiableList(Arrays.asList(records));
+        }
+
+        /**
+         * @return количество изменений, опубликованных до этого снимка
+         */
+        public long getVersion() {
+            return version;
+        }
+    }
+
+    /**
+     * Изменяемая копия списка внутри {@link #update(Consumer)}
+     */
+    public static class Batch {
+        private final List<SpecialistRecord> records;
+        private boolean modified;
+
+        private Batch(SpecialistRecord[] records) {
+            this.records = new ArrayList<>(Arrays.asList(records));
+        }
+
+        public int size() {
+            return records.size();
+        }
+
+        public SpecialistRecord get(int index) {
+            return records.get(index);
+        }
+
+        public void set(int index, SpecialistRecord record) {
+            if (records.set(index, Objects.requireNonNull(record)) != record) modified = true;
+        }
+
+        public void add(SpecialistRecord record) {
+            records.add(Objects.requireNonNull(record));
+            modified = true;
+        }
+
+        public SpecialistRecord remove(int index) {
+            modified = true;
+            return records.remove(index);
+        }
+
+        /**
+         * @return количество измененных записей
+         */
+        public int replaceIf(Predicate<? super SpecialistRecord> filter, UnaryOperator<SpecialistRecord> operator) {
+            int changed = 0;
+            for (int i = 0; i < records.size(); i++) {
+                SpecialistRecord record = records.get(i);
+                if (filter.test(record)) {
+                    SpecialistRecord replacement = Objects.requireNonNull(operator.apply(record));
+                    if (replacement != record) {
+                        records.set(i, replacement);
+                        changed++;
+                    }
+                }
+            }
+            if (changed > 0) modified = true;
+            return changed;
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package streamapi;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Загрузка списка специалистов из многих файлов в формате {@link SpecialistExporter.Format#CSV}.
+ * <p>
+ * Каждый файл читается и разбирается своей задачей. На JDK 21+ задачи выполняются на виртуальных потоках
+ * (Executors.newVirtualThreadPerTaskExecutor через рефлексию, проект собирается под Java 17),
+ * иначе на фиксированном пуле. Разобранные специалисты пачками передаются через ограниченную очередь
+ * {@link ArrayBlockingQueue}: при заполненной очереди читатели блокируются, поэтому в памяти находится
+ * не больше queueCapacity * batchSize неразобранных специалистов. Один сборщик в вызывающем потоке забирает пачки,
+ * удаляет дубликаты по {@link Specialist#equals(Object)} на {@link SpecialistHashSet} и передает уникальных
+ * специалистов получателю. Порядок специалистов из разных файлов не определен, внутри файла сохраняется.
+ * <p>
+ * Ошибка чтения или разбора файла не останавливает загрузку остальных файлов и попадает в {@link SourceStats#getError()}
+ */
+public class RosterIngestion {
+    private static final String HEADER = "name,salary,speciality";
+    private static final Speciality[] SPECIALITIES = Speciality.values();
+
+    private final int queueCapacity;
+    private final int batchSize;
+
+    public RosterIngestion() {
+        this(64, 1024);
+    }
+
+    /**
+     * @param queueCapacity количество пачек в очереди между читателями и сборщиком
+     * @param batchSize     количество специалистов в пачке
+     */
+    public RosterIngestion(int queueCapacity, int batchSize) {
+        if (queueCapacity < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("queueCapacity and batchSize must be positive");
+        }
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Загрузка в список
+     *
+     * @param feeds файлы
+     * @param roster список, в который добавляются уникальные специалисты
+     * @return статистика загрузки
+     */
+    public Report ingest(List<Path> feeds, List<Specialist> roster) throws InterruptedException {
+        return ingest(feeds, (Consumer<Specialist>) roster::add);
+    }
+
+    /**
+     * @param feeds файлы
+     * @param sink  получатель уникальных специалистов, вызывается только из вызывающего потока
+     * @return статистика загрузки
+     */
+    public Report ingest(List<Path> feeds, Consumer<? super Specialist> sink) throws InterruptedException {
+        long start = System.nanoTime();
+        BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(queueCapacity);
+        SourceStats[] stats = new SourceStats[feeds.size()];
+        ExecutorService executor = newExecutor(feeds.size());
+        try {
+            for (int i = 0; i < feeds.size(); i++) {
+                stats[i] = new SourceStats(feeds.get(i));
+                SourceStats source = stats[i];
+                executor.execute(() -> read(source, queue));
+            }
+            SpecialistHashSet seen = new SpecialistHashSet();
+            int finished = 0;
+            while (finished < feeds.size()) {
+                Batch batch = queue.take();
+                if (batch.last) {
+                    finished++;
+                    continue;
+                }
+                for (Specialist specialist : batch.specialists) {
+                    if (seen.add(specialist)) {
+                        batch.source.unique++;
+                        sink.accept(specialist);
+                    }
+                }
+            }
+        } finally {
+            // при прерывании или ошибке получателя читатели, заблокированные на очереди, прерываются
+            executor.shutdownNow();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        return new Report(List.of(stats), System.nanoTime() - start);
+    }
+
+    private void read(SourceStats source, BlockingQueue<Batch> queue) {
+        long start = System.nanoTime();
+        List<Specialist> batch = new ArrayList<>(batchSize);
+        try {
+            source.bytes = Files.size(source.path);
+            try (BufferedReader reader = Files.newBufferedReader(source.path, StandardCharsets.UTF_8)) {
+                CsvParser parser = new CsvParser(reader);
+                List<String> header = parser.next();
+                if (header != null && !String.join(",", header).equals(HEADER)) {
+                    throw new IOException("unexpected header: " + header);
+                }
+                for (List<String> fields; (fields = parser.next()) != null; ) {
+                    batch.add(toSpecialist(fields, parser.line));
+                    source.records++;
+                    if (batch.size() == batchSize) {
+                        queue.put(new Batch(source, batch, false));
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            source.error = e;
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Throwable e) {
+            // в том числе Error (OutOfMemoryError, StackOverflowError): без маркера конца файла объединитель ждал бы вечно
+            source.error = e;
+        } finally {
+            source.nanos = System.nanoTime() - start;
+        }
+        try {
+            if (!batch.isEmpty()) queue.put(new Batch(source, batch, false));
+            queue.put(new Batch(source, List.of(), true));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Specialist toSpecialist(List<String> fields, long line) throws IOException {
+        if (fields.size() != 3) throw new IOException("line " + line + ": expected 3 fields, got " + fields.size());
+        try {
+            String name = fields.get(0);
+            int salary = Integer.parseInt(fields.get(1));
+            Speciality speciality = fields.get(2) == null ? null : speciality(fields.get(2));
+            return new Specialist(name, salary, speciality);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("line " + line + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static Speciality speciality(String name) {
+        for (Speciality speciality : SPECIALITIES) {
+            if (speciality.name().equals(name)) return speciality;
+        }
+        throw new IllegalArgumentException("unknown speciality " + name);
+    }
+
+    /**
+     * Виртуальные потоки, если они есть в JDK, иначе пул по числу ядер, но не больше числа файлов
+     */
+    private static ExecutorService newExecutor(int tasks) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            int threads = Math.max(1, Math.min(tasks, Runtime.getRuntime().availableProcessors() * 2));
+            return Executors.newFixedThreadPool(threads, task -> {
+                Thread thread = new Thread(task, "roster-ingestion");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Итоги загрузки
+     */
+    public static class Report {
+        private final List<SourceStats> sources;
+        private final long nanos;
+
+        Report(List<SourceStats> sources, long nanos) {
+            this.sources = sources;
+            this.nanos = nanos;
+        }
+
+        /**
+         * @return статистика по файлам в порядке передачи файлов
+         */
+        public List<SourceStats> getSources() {
+            return sources;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        public long getRecords() {
+            return sources.stream().mapToLong(SourceStats::getRecords).sum();
+        }
+
+        public long getUnique() {
+            return sources.stream().mapToLong(SourceStats::getUnique).sum();
+        }
+
+        public boolean hasErrors() {
+            return sources.stream().anyMatch(source -> source.getError() != null);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder result = new StringBuilder(String.format(Locale.ROOT, "%d records, %d unique in %.3f ms%n",
+                    getRecords(), getUnique(), nanos / 1e6));
+            sources.forEach(source -> result.append(source).append(System.lineSeparator()));
+            return result.toString();
+        }
+    }
+
+    /**
+     * Статистика одного файла. Значения публикуются через очередь и читаются после завершения загрузки
+     */
+    public static class SourceStats {
+        private final Path path;
+        private long bytes;
+        private long records;
+        private long unique;
+        private long nanos;
+        private Throwable error;
+
+        SourceStats(Path path) {
+            this.path = path;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * @return количество разобранных записей
+         */
+        public long getRecords() {
+            return records;
+        }
+
+        /**
+         * @return количество записей, не совпавших с ранее загруженными
+         */
+        public long getUnique() {
+            return unique;
+        }
+
+        public long getDuplicates() {
+            return records - unique;
+        }
+
+        /**
+         * @return время чтения и разбора файла, включая ожидание места в очереди
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        public double getRecordsPerSecond() {
+            return nanos == 0 ? 0 : records * 1e9 / nanos;
+        }
+
+        public double getMegabytesPerSecond() {
+            return nanos == 0 ? 0 : bytes / 1048576.0 * 1e9 / nanos;
+        }
+
+        /**
+         * @return ошибка чтения или разбора или null, при ошибке загружены записи до нее
+         */
+        public Throwable getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s: %d records, %d duplicates, %.0f records/s, %.1f MB/s%s",
+                    path, records, getDuplicates(), getRecordsPerSecond(), getMegabytesPerSecond(),
+                    error == null ? "" : ", error: " + error);
+        }
+    }
+
+    private static class Batch {
+        final SourceStats source;
+        final List<Specialist> specialists;
+        final boolean last;
+
+        Batch(SourceStats source, List<Specialist> specialists, boolean last) {
+            this.source = source;
+            this.specialists = specialists;
+            this.last = last;
+        }
+    }
+
+    /**
+     * Разбор CSV по RFC 4180: поля в кавычках могут содержать запятые, переводы строк и удвоенные кавычки
+     */
+    private static class CsvParser {
+        private final Reader reader;
+        private final StringBuilder field = new StringBuilder();
+        private int pending = -2;
+        long line;
+
+        CsvParser(Reader reader) {
+            this.reader = reader;
+        }
+
+        /**
+         * @return поля следующей записи или null в конце файла, пустое поле без кавычек - null,
+         * пустая строка в кавычках ("") - пустая строка, как пишет {@link SpecialistExporter}
+         */
+        List<String> next() throws IOException {
+            int c = read();
+            if (c == -1) return null;
+            line++;
+            List<String> fields = new ArrayList<>(3);
+            field.setLength(0);
+            boolean quoted = false;
+            boolean wasQuoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) throw new IOException("line " + line + ": unterminated quoted field");
+                    if (c == '"') {
+                        c = read();
+                        if (c != '"') {
+                            quoted = false;
+                            continue;
+                        }
+                    }
+                    field.append((char) c);
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                    wasQuoted = true;
+                } else if (c == ',') {
+                    fields.add(value(wasQuoted));
+                    field.setLength(0);
+                    wasQuoted = false;
+                } else if (c == '\n' || c == -1) {
+                    break;
+                } else if (c == '\r') {
+                    int next = read();
+                    if (next != '\n') pending = next;
+                    break;
+                } else {
+                    field.append((char) c);
+                }
+                c = read();
+            }
+            fields.add(value(wasQuoted));
+            return fields;
+        }
+
+        private String value(boolean quoted) {
+            return field.length() == 0 && !quoted ? null : field.toString();
+        }
+
+        private int read() throws IOException {
+            if (pending != -2) {
+                int c = pending;
+                pending = -2;
+                return c;
+            }
+            return reader.read();
+        }
+    }
+}
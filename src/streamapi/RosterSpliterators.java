@@ -0,0 +1,204 @@
+package streamapi;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator-ы для списков специалистов, которые делятся на равные части по сквозному номеру элемента.
+ * <p>
+ * Стандартные источники плохо масштабируются в параллельных стримах: flatMap не делит вложенные стримы,
+ * а Stream.concat делит только по границе двух источников, и при разных размерах списков задачи получаются
+ * неравными. {@link IndexedSpliterator} рассматривает несколько списков как один массив: делится пополам
+ * по номеру независимо от границ списков, сообщает точный размер (SIZED, SUBSIZED) и выполняет skip/limit
+ * за O(1) без буферизации.
+ * <p>
+ * Размеры списков запоминаются при создании, списки не должны структурно изменяться во время обхода.
+ * Списки без {@link RandomAccess} (например LinkedList) не копируются, а обходятся итератором с начала диапазона,
+ * поэтому limit на них читает только нужные элементы. Деление по номеру точное и для них, поэтому spliterator
+ * всегда сообщает SUBSIZED, но обход части такого списка начинается с прохода до ее начала:
+ * {@link ExecutionPlanner} сам считает плохо делимым spliterator, у которого {@link IndexedSpliterator#isRandomAccess()}
+ * возвращает false
+ */
+public final class RosterSpliterators {
+
+    private RosterSpliterators() {
+    }
+
+    /**
+     * @param list список
+     * @return spliterator по списку
+     */
+    public static <T> IndexedSpliterator<T> of(List<? extends T> list) {
+        return flatten(List.of(list));
+    }
+
+    /**
+     * @param first  первый список
+     * @param second второй список
+     * @return spliterator по элементам первого, затем второго списка
+     */
+    public static <T> IndexedSpliterator<T> concat(List<? extends T> first, List<? extends T> second) {
+        return flatten(List.of(first, second));
+    }
+
+    /**
+     * @param lists списки
+     * @return spliterator по элементам всех списков по порядку
+     */
+    public static <T> IndexedSpliterator<T> flatten(List<? extends List<? extends T>> lists) {
+        List<?>[] parts = new List<?>[lists.size()];
+        long[] offsets = new long[parts.length + 1];
+        boolean randomAccess = true;
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = lists.get(i);
+            randomAccess &= parts[i] instanceof RandomAccess;
+            offsets[i + 1] = offsets[i] + parts[i].size();
+        }
+        return new IndexedSpliterator<>(parts, offsets, randomAccess, 0, offsets[parts.length]);
+    }
+
+    /**
+     * Spliterator по диапазону сквозных номеров [index, fence) в последовательности списков
+     */
+    public static final class IndexedSpliterator<T> implements Spliterator<T> {
+        private final List<?>[] parts;
+        // offsets[i] - сквозной номер первого элемента списка i, offsets[parts.length] - общее количество
+        private final long[] offsets;
+        // все списки с RandomAccess
+        private final boolean randomAccess;
+        private long index;
+        private final long fence;
+        // список, в котором находится index, -1 - еще не найден
+        private int part = -1;
+        // итератор списка без RandomAccess, стоит перед элементом index, если cursorPart == part
+        private ListIterator<?> cursor;
+        private int cursorPart = -1;
+
+        private IndexedSpliterator(List<?>[] parts, long[] offsets, boolean randomAccess, long index, long fence) {
+            this.parts = parts;
+            this.offsets = offsets;
+            this.randomAccess = randomAccess;
+            this.index = index;
+            this.fence = fence;
+        }
+
+        /**
+         * @param n количество пропускаемых элементов
+         * @return spliterator без первых n элементов, аналог Stream.skip
+         */
+        public IndexedSpliterator<T> skip(long n) {
+            if (n < 0) throw new IllegalArgumentException("n must not be negative: " + n);
+            return new IndexedSpliterator<>(parts, offsets, randomAccess, index + Math.min(n, fence - index), fence);
+        }
+
+        /**
+         * @param n максимальное количество элементов
+         * @return spliterator по первым n элементам, аналог Stream.limit
+         */
+        public IndexedSpliterator<T> limit(long n) {
+            if (n < 0) throw new IllegalArgumentException("n must not be negative: " + n);
+            return new IndexedSpliterator<>(parts, offsets, randomAccess, index, index + Math.min(n, fence - index));
+        }
+
+        /**
+         * @return true, если у всех списков есть {@link RandomAccess} и обход любой части начинается сразу с ее начала
+         */
+        public boolean isRandomAccess() {
+            return randomAccess;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            Objects.requireNonNull(action);
+            if (index >= fence) return false;
+            locate();
+            List<?> list = parts[part];
+            int i = (int) (index - offsets[part]);
+            if (list instanceof RandomAccess) {
+                action.accept(cast(list.get(i)));
+            } else {
+                action.accept(cast(cursor(list, i).next()));
+            }
+            index++;
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            Objects.requireNonNull(action);
+            if (index >= fence) return;
+            locate();
+            for (int p = part; index < fence; p++) {
+                int end = (int) (Math.min(fence, offsets[p + 1]) - offsets[p]);
+                List<?> list = parts[p];
+                int start = (int) (index - offsets[p]);
+                part = p;
+                if (list instanceof RandomAccess) {
+                    for (int i = start; i < end; i++) {
+                        action.accept(cast(list.get(i)));
+                    }
+                } else {
+                    ListIterator<?> iterator = cursor(list, start);
+                    for (int i = start; i < end; i++) {
+                        action.accept(cast(iterator.next()));
+                    }
+                }
+                index = offsets[p] + end;
+            }
+            cursor = null;
+            cursorPart = -1;
+        }
+
+        @Override
+        public IndexedSpliterator<T> trySplit() {
+            long middle = (index + fence) >>> 1;
+            if (middle <= index) return null;
+            IndexedSpliterator<T> prefix = new IndexedSpliterator<>(parts, offsets, randomAccess, index, middle);
+            index = middle;
+            part = -1;
+            cursor = null;
+            cursorPart = -1;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED;
+        }
+
+        /**
+         * Поиск списка с текущим номером: двоичный поиск после деления, далее переход к следующему списку
+         */
+        private void locate() {
+            if (part < 0) {
+                int found = Arrays.binarySearch(offsets, index);
+                // при совпадении с началом пустых списков может найтись любой из них, пустые пропускаются ниже
+                part = found >= 0 ? found : -found - 2;
+            }
+            while (index >= offsets[part + 1]) {
+                part++;
+            }
+        }
+
+        /**
+         * @return итератор текущего списка, стоящий перед элементом i, создается при переходе на список
+         */
+        private ListIterator<?> cursor(List<?> list, int i) {
+            if (cursorPart != part) {
+                cursor = list.listIterator(i);
+                cursorPart = part;
+            }
+            return cursor;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T cast(Object element) {
+            return (T) element;
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package streamapi;
+
+import java.util.*;
+
+/**
+ * Агрегации по зарплатам специалистов на примитивах.
+ * В отличие от стримов, методы не упаковывают зарплаты в Integer и не выделяют память на каждый элемент:
+ * сумма накапливается в long и не переполняется, min/max возвращают самого специалиста,
+ * для top-K и перцентилей память выделяется один раз на вызов или передается вызывающим кодом
+ */
+public class SalaryAggregations {
+
+    /**
+     * Аналог {@link StreamAPI#reduceElemetsToTotalSalary(List)} без упаковки и переполнения int
+     *
+     * @param specialists список специалистов
+     * @return сумма зарплат всех специалистов, 0 для пустого списка
+     */
+    public static long totalSalary(List<Specialist> specialists) {
+        long total = 0;
+        if (specialists instanceof RandomAccess) {
+            for (int i = 0, size = specialists.size(); i < size; i++) {
+                total += specialists.get(i).getSalary();
+            }
+        } else {
+            for (Specialist specialist : specialists) {
+                total += specialist.getSalary();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Аналог {@link StreamAPI#maxFindSpecialistWithMaxSalary(List)}, при равных зарплатах возвращается первый специалист
+     *
+     * @param specialists список специалистов
+     * @return специалист с максимальной зарплатой или null для пустого списка
+     */
+    public static Specialist maxBySalary(List<Specialist> specialists) {
+        Specialist max = null;
+        int maxSalary = Integer.MIN_VALUE;
+        if (specialists instanceof RandomAccess) {
+            for (int i = 0, size = specialists.size(); i < size; i++) {
+                Specialist specialist = specialists.get(i);
+                int salary = specialist.getSalary();
+                if (max == null || salary > maxSalary) {
+                    max = specialist;
+                    maxSalary = salary;
+                }
+            }
+        } else {
+            for (Specialist specialist : specialists) {
+                int salary = specialist.getSalary();
+                if (max == null || salary > maxSalary) {
+                    max = specialist;
+                    maxSalary = salary;
+                }
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Аналог {@link StreamAPI#minFindSpecialistWithMinSalary(List)}, при равных зарплатах возвращается первый специалист
+     *
+     * @param specialists список специалистов
+     * @return специалист с минимальной зарплатой или null для пустого списка
+     */
+    public static Specialist minBySalary(List<Specialist> specialists) {
+        Specialist min = null;
+        int minSalary = Integer.MAX_VALUE;
+        if (specialists instanceof RandomAccess) {
+            for (int i = 0, size = specialists.size(); i < size; i++) {
+                Specialist specialist = specialists.get(i);
+                int salary = specialist.getSalary();
+                if (min == null || salary < minSalary) {
+                    min = specialist;
+                    minSalary = salary;
+                }
+            }
+        } else {
+            for (Specialist specialist : specialists) {
+                int salary = specialist.getSalary();
+                if (min == null || salary < minSalary) {
+                    min = specialist;
+                    minSalary = salary;
+                }
+            }
+        }
+        return min;
+    }
+
+    /**
+     * K специалистов с наибольшими зарплатами, результат совпадает с первыми K элементами
+     * {@link StreamAPI#sortedSpecialistsBySalaryDesc(List)}.
+     * Используется ограниченная куча из K номеров элементов, сложность O(n log K)
+     *
+     * @param specialists список специалистов
+     * @param k           количество специалистов
+     * @return специалисты по убыванию зарплаты, при равных зарплатах - в исходном порядке
+     */
+    public static List<Specialist> topBySalary(List<Specialist> specialists, int k) {
+        if (k < 0) throw new IllegalArgumentException("k must not be negative: " + k);
+        List<Specialist> source = specialists instanceof RandomAccess ? specialists : new ArrayList<>(specialists);
+        int size = source.size();
+        int limit = Math.min(k, size);
+        // в корне кучи - худший из отобранных: меньшая зарплата, при равной - больший номер
+        int[] heap = new int[limit];
+        int[] heapSalaries = new int[limit];
+        int heapSize = 0;
+        for (int i = 0; i < size && limit > 0; i++) {
+            int salary = source.get(i).getSalary();
+            if (heapSize < limit) {
+                heap[heapSize] = i;
+                heapSalaries[heapSize] = salary;
+                siftUp(heap, heapSalaries, heapSize++);
+            } else if (salary > heapSalaries[0]) {
+                heap[0] = i;
+                heapSalaries[0] = salary;
+                siftDown(heap, heapSalaries, heapSize);
+            }
+        }
+        Specialist[] result = new Specialist[heapSize];
+        while (heapSize > 0) {
+            result[heapSize - 1] = source.get(heap[0]);
+            heapSize--;
+            heap[0] = heap[heapSize];
+            heapSalaries[0] = heapSalaries[heapSize];
+            siftDown(heap, heapSalaries, heapSize);
+        }
+        return Arrays.asList(result);
+    }
+
+    /**
+     * Перцентиль зарплат методом ближайшего ранга
+     *
+     * @param specialists список специалистов
+     * @param percentile  перцентиль от 0 до 100, 0 - минимальная зарплата, 100 - максимальная
+     * @return значение перцентиля
+     */
+    public static int percentile(List<Specialist> specialists, double percentile) {
+        return percentile(specialists, percentile, new int[specialists.size()]);
+    }
+
+    /**
+     * Перцентиль зарплат методом ближайшего ранга без выделения памяти,
+     * зарплаты копируются в переданный буфер и частично упорядочиваются (quickselect)
+     *
+     * @param specialists список специалистов
+     * @param percentile  перцентиль от 0 до 100
+     * @param scratch     буфер размером не меньше количества специалистов, содержимое буфера перезаписывается
+     * @return значение перцентиля
+     */
+    public static int percentile(List<Specialist> specialists, double percentile, int[] scratch) {
+        int size = copySalaries(specialists, scratch);
+        return select(scratch, size, rank(percentile, size));
+    }
+
+    /**
+     * Несколько перцентилей за одну сортировку зарплат
+     *
+     * @param specialists список специалистов
+     * @param percentiles перцентили от 0 до 100
+     * @return значения перцентилей в порядке аргументов
+     */
+    public static int[] percentiles(List<Specialist> specialists, double... percentiles) {
+        int[] salaries = new int[specialists.size()];
+        int size = copySalaries(specialists, salaries);
+        Arrays.sort(salaries);
+        int[] result = new int[percentiles.length];
+        for (int i = 0; i < percentiles.length; i++) {
+            result[i] = salaries[rank(percentiles[i], size)];
+        }
+        return result;
+    }
+
+    private static int copySalaries(List<Specialist> specialists, int[] target) {
+        int size = specialists.size();
+        if (size == 0) throw new NoSuchElementException("no specialists");
+        if (target.length < size) throw new IllegalArgumentException("scratch buffer is too small: " + target.length + " < " + size);
+        if (specialists instanceof RandomAccess) {
+            for (int i = 0; i < size; i++) {
+                target[i] = specialists.get(i).getSalary();
+            }
+        } else {
+            int i = 0;
+            for (Specialist specialist : specialists) {
+                target[i++] = specialist.getSalary();
+            }
+        }
+        return size;
+    }
+
+    private static int rank(double percentile, int size) {
+        if (!(percentile >= 0 && percentile <= 100)) throw new IllegalArgumentException("percentile must be in [0, 100]: " + percentile);
+        return Math.max(0, (int) Math.ceil(percentile / 100 * size) - 1);
+    }
+
+    /**
+     * Поиск k-го по порядку элемента (quickselect с разбиением Хоара), массив частично упорядочивается
+     */
+    private static int select(int[] values, int size, int k) {
+        int left = 0;
+        int right = size - 1;
+        while (left < right) {
+            int pivot = values[(left + right) >>> 1];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (values[i] < pivot) i++;
+                while (values[j] > pivot) j--;
+                if (i <= j) {
+                    int tmp = values[i];
+                    values[i] = values[j];
+                    values[j] = tmp;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return values[k];
+            }
+        }
+        return values[k];
+    }
+
+    private static boolean worse(int[] heap, int[] salaries, int a, int b) {
+        return salaries[a] < salaries[b] || (salaries[a] == salaries[b] && heap[a] > heap[b]);
+    }
+
+    private static void siftUp(int[] heap, int[] salaries, int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!worse(heap, salaries, index, parent)) break;
+            swap(heap, salaries, index, parent);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, int[] salaries, int size) {
+        int index = 0;
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) break;
+            int right = left + 1;
+            int child = right < size && worse(heap, salaries, right, left) ? right : left;
+            if (!worse(heap, salaries, child, index)) break;
+            swap(heap, salaries, index, child);
+            index = child;
+        }
+    }
+
+    private static void swap(int[] heap, int[] salaries, int a, int b) {
+        int index = heap[a];
+        heap[a] = heap[b];
+        heap[b] = index;
+        int salary = salaries[a];
+        salaries[a] = salaries[b];
+        salaries[b] = salary;
+    }
+}
@@ -0,0 +1,224 @@
+package streamapi;
+
+import java.util.*;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+/**
+ * Массовое изменение зарплат в {@link RecordRoster} вместо изменения специалистов в peek
+ * ({@link StreamAPI#peekElements(List)}).
+ * <p>
+ * Пакет правил применяется к каждой записи по порядку: следующее правило проверяет и меняет зарплату,
+ * полученную предыдущим. Записи обрабатываются параллельно частями по {@value #CHUNK_SIZE}, измененные записи
+ * собираются в новый массив, который публикуется одним изменением списка. Читатели видят либо список до пакета,
+ * либо после него. Пакеты одного списка выполняются по очереди и не теряют изменения друг друга.
+ * <pre>
+ * engine.apply(roster, List.of(
+ *         Rule.raisePercent(10).forSpeciality(Speciality.DEVELOPER),
+ *         Rule.cap(3000000)));
+ * </pre>
+ */
+public class SalaryUpdateEngine {
+    private static final int CHUNK_SIZE = 4096;
+
+    /**
+     * @param roster список
+     * @param rules  правила в порядке применения
+     * @return изменения пакета
+     */
+    public ChangeLog apply(RecordRoster roster, List<Rule> rules) {
+        Rule[] batch = rules.toArray(new Rule[0]);
+        List<Change> all = new ArrayList<>();
+        long version = roster.transform(current -> {
+            int chunks = (current.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            List<Change>[] changes = newLists(chunks);
+            IntStream.range(0, chunks)
+                    .parallel()
+                    .forEach(chunk -> changes[chunk] = applyChunk(current, chunk, batch));
+            for (List<Change> chunk : changes) {
+                all.addAll(chunk);
+            }
+            if (all.isEmpty()) return null;
+            SpecialistRecord[] updated = current.clone();
+            for (Change change : all) {
+                updated[change.index] = change.after;
+            }
+            return updated;
+        });
+        return new ChangeLog(all, version);
+    }
+
+    public ChangeLog apply(RecordRoster roster, Rule... rules) {
+        return apply(roster, Arrays.asList(rules));
+    }
+
+    private static List<Change> applyChunk(SpecialistRecord[] records, int chunk, Rule[] rules) {
+        List<Change> changes = new ArrayList<>();
+        int end = Math.min(records.length, (chunk + 1) * CHUNK_SIZE);
+        for (int i = chunk * CHUNK_SIZE; i < end; i++) {
+            SpecialistRecord before = records[i];
+            SpecialistRecord after = before;
+            for (Rule rule : rules) {
+                if (rule.selector.test(after)) after = after.withSalary(rule.adjustment.applyAsInt(after.getSalary()));
+            }
+            if (after != before) changes.add(new Change(i, before, after));
+        }
+        return changes;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Change>[] newLists(int size) {
+        return (List<Change>[]) new List<?>[size];
+    }
+
+    /**
+     * Правило изменения зарплаты: условие выбора записей и новая зарплата по старой.
+     * Правила неизменяемые, методы for* и inBand возвращают правило с дополнительным условием
+     */
+    public static final class Rule {
+        private final Predicate<SpecialistRecord> selector;
+        private final IntUnaryOperator adjustment;
+        private final String description;
+
+        private Rule(Predicate<SpecialistRecord> selector, IntUnaryOperator adjustment, String description) {
+            this.selector = selector;
+            this.adjustment = adjustment;
+            this.description = description;
+        }
+
+        /**
+         * @return правило, устанавливающее зарплату salary
+         */
+        public static Rule set(int salary) {
+            return new Rule(r -> true, old -> salary, "set " + salary);
+        }
+
+        /**
+         * @param percent процент повышения, отрицательный - понижение
+         * @return правило, повышающее зарплату на percent процентов с округлением до целого
+         */
+        public static Rule raisePercent(double percent) {
+            if (!Double.isFinite(percent)) throw new IllegalArgumentException("percent must be finite: " + percent);
+            return new Rule(r -> true, old -> saturate(Math.round(old * (1 + percent / 100))),
+                    "raise " + percent + "%");
+        }
+
+        /**
+         * @return правило, ограничивающее зарплату сверху значением max
+         */
+        public static Rule cap(int max) {
+            return new Rule(r -> true, old -> Math.min(old, max), "cap " + max);
+        }
+
+        /**
+         * @return правило только для специалистов специальности speciality
+         */
+        public Rule forSpeciality(Speciality speciality) {
+            return where(r -> r.getSpeciality() == speciality, "speciality = " + speciality);
+        }
+
+        /**
+         * @return правило только для зарплат в диапазоне [min, max]
+         */
+        public Rule inBand(int min, int max) {
+            if (min > max) throw new IllegalArgumentException("min > max: " + min + " > " + max);
+            return where(r -> r.getSalary() >= min && r.getSalary() <= max, "salary in [" + min + ", " + max + "]");
+        }
+
+        /**
+         * @return правило с дополнительным условием
+         */
+        public Rule where(Predicate<SpecialistRecord> condition, String description) {
+            return new Rule(selector.and(condition), adjustment, this.description + " where " + description);
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+
+        private static int saturate(long salary) {
+            return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, salary));
+        }
+    }
+
+    /**
+     * Изменение одной записи
+     */
+    public static final class Change {
+        private final int index;
+        private final SpecialistRecord before;
+        private final SpecialistRecord after;
+
+        Change(int index, SpecialistRecord before, SpecialistRecord after) {
+            this.index = index;
+            this.before = before;
+            this.after = after;
+        }
+
+        /**
+         * @return номер записи в списке
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        public SpecialistRecord getBefore() {
+            return before;
+        }
+
+        public SpecialistRecord getAfter() {
+            return after;
+        }
+
+        @Override
+        public String toString() {
+            return index + ": " + before.getSalary() + " -> " + after.getSalary();
+        }
+    }
+
+    /**
+     * Изменения одного пакета в порядке записей
+     */
+    public static final class ChangeLog {
+        private final List<Change> changes;
+        private final long version;
+
+        ChangeLog(List<Change> changes, long version) {
+            this.changes = Collections.unmodifiableList(changes);
+            this.version = version;
+        }
+
+        public List<Change> getChanges() {
+            return changes;
+        }
+
+        public int size() {
+            return changes.size();
+        }
+
+        /**
+         * @return версия списка после пакета, {@link RecordRoster#version()}
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * @return суммарное изменение зарплат
+         */
+        public long getSalaryDelta() {
+            long delta = 0;
+            for (Change change : changes) {
+                delta += (long) change.after.getSalary() - change.before.getSalary();
+            }
+            return delta;
+        }
+
+        @Override
+        public String toString() {
+            return "ChangeLog{changes=" + changes.size() + ", salaryDelta=" + getSalaryDelta() + ", version=" + version + '}';
+        }
+    }
+}
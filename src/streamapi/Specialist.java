@@ -1,11 +1,21 @@
 package streamapi;
 
+import java.util.Arrays;
 import java.util.Objects;
 
+/**
+ * Специалист. Объект занимает 32 байта при сжатых ссылках: 24 байта заголовка и полей
+ * и 8 байт на ссылку на слушателей {@link SpecialistListener} с выравниванием. Слушатели нужны контейнерам,
+ * которые поддерживают индексы и агрегаты по изменяемым полям ({@link IndexedRoster},
+ * {@link LiveSpecialistAggregates}, {@link QueryCache}). Массив слушателей создается при первой подписке,
+ * у специалиста без подписчиков ссылка равна null и конструктор не пишет в volatile-поле.
+ * Компактное неизменяемое представление в 24 байта - {@link SpecialistRecord}
+ */
 public class Specialist {
     private String name;
     private int salary;
     private Speciality speciality;
+    private volatile SpecialistListener[] listeners;
 
     public Specialist(String name, int salary, Speciality speciality) {
         this.name = name;
@@ -18,7 +28,14 @@ public class Specialist {
     }
 
     public void setName(String name) {
+        String oldName = this.name;
         this.name = name;
+        SpecialistListener[] current = listeners;
+        if (current != null && !Objects.equals(oldName, name)) {
+            for (SpecialistListener listener : current) {
+                listener.nameChanged(this, oldName);
+            }
+        }
     }
 
     public int getSalary() {
@@ -26,7 +43,14 @@ public class Specialist {
     }
 
     public void setSalary(int salary) {
+        int oldSalary = this.salary;
         this.salary = salary;
+        SpecialistListener[] current = listeners;
+        if (current != null && oldSalary != salary) {
+            for (SpecialistListener listener : current) {
+                listener.salaryChanged(this, oldSalary);
+            }
+        }
     }
 
     public Speciality getSpeciality() {
@@ -34,28 +58,77 @@ public class Specialist {
     }
 
     public void setSpeciality(Speciality speciality) {
+        Speciality oldSpeciality = this.speciality;
         this.speciality = speciality;
+        SpecialistListener[] current = listeners;
+        if (current != null && oldSpeciality != speciality) {
+            for (SpecialistListener listener : current) {
+                listener.specialityChanged(this, oldSpeciality);
+            }
+        }
+    }
+
+    /**
+     * Подписка на изменения полей специалиста, слушатель вызывается в потоке, который вызвал сеттер
+     *
+     * @param listener слушатель
+     */
+    public synchronized void addListener(SpecialistListener listener) {
+        Objects.requireNonNull(listener);
+        SpecialistListener[] current = listeners;
+        if (current == null) {
+            listeners = new SpecialistListener[]{listener};
+            return;
+        }
+        SpecialistListener[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = listener;
+        listeners = updated;
+    }
+
+    /**
+     * @param listener слушатель
+     * @return true, если слушатель был подписан
+     */
+    public synchronized boolean removeListener(SpecialistListener listener) {
+        SpecialistListener[] current = listeners;
+        if (current == null) return false;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == listener) {
+                SpecialistListener[] updated = new SpecialistListener[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                listeners = updated.length == 0 ? null : updated;
+                return true;
+            }
+        }
+        return false;
     }
 
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
+        // instanceof вместо getClass(): представление OffHeapRoster.SpecialistView равно своей копии
+        if (!(o instanceof Specialist)) return false;
         Specialist that = (Specialist) o;
-        return salary == that.salary && Objects.equals(name, that.name) && speciality == that.speciality;
+        return getSalary() == that.getSalary() && Objects.equals(getName(), that.getName()) && getSpeciality() == that.getSpeciality();
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(name, salary, speciality);
+        // то же значение, что Objects.hash(name, salary, speciality), но без массива аргументов и упаковки зарплаты
+        int result = 1;
+        result = 31 * result + Objects.hashCode(getName());
+        result = 31 * result + getSalary();
+        result = 31 * result + Objects.hashCode(getSpeciality());
+        return result;
     }
 
     @Override
     public String toString() {
         return "Specialist{" +
-                "name='" + name + '\'' +
-                ", salary=" + salary +
-                ", speciality=" + speciality +
+                "name='" + getName() + '\'' +
+                ", salary=" + getSalary() +
+                ", speciality=" + getSpeciality() +
                 '}';
     }
 }
@@ -0,0 +1,137 @@
+package streamapi;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Удаление дубликатов специалистов на {@link SpecialistHashSet} вместо distinct() на LinkedHashSet.
+ * Во всех методах сохраняется первое вхождение и порядок источников, как в
+ * {@link StreamAPI#distinctGetUniqueSpecialists(List)} после {@link StreamAPI#concatCombineSpecialists(List, List)}
+ */
+public class SpecialistDeduplicator {
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    /**
+     * Аналог {@link StreamAPI#distinctGetUniqueSpecialists(List)}
+     *
+     * @param specialists список специалистов
+     * @return уникальные специалисты в порядке первого вхождения
+     */
+    public static List<Specialist> distinct(List<Specialist> specialists) {
+        return concatDistinct(List.of(specialists));
+    }
+
+    /**
+     * Объединение двух списков и удаление дубликатов за один проход без промежуточного списка
+     *
+     * @param specialists1 список специалистов 1
+     * @param specialists2 список специалистов 2
+     * @return уникальные специалисты обоих списков в порядке первого вхождения
+     */
+    public static List<Specialist> concatDistinct(List<Specialist> specialists1, List<Specialist> specialists2) {
+        return concatDistinct(List.of(specialists1, specialists2));
+    }
+
+    /**
+     * Объединение нескольких списков и удаление дубликатов за один проход без промежуточного списка
+     *
+     * @param sources списки специалистов
+     * @return уникальные специалисты всех списков в порядке первого вхождения
+     */
+    public static List<Specialist> concatDistinct(List<? extends List<Specialist>> sources) {
+        int total = totalSize(sources);
+        SpecialistHashSet seen = new SpecialistHashSet(total);
+        List<Specialist> result = new ArrayList<>();
+        for (List<Specialist> source : sources) {
+            for (Specialist specialist : source) {
+                if (seen.add(specialist)) result.add(specialist);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Параллельное объединение и удаление дубликатов:
+     * <ol>
+     *     <li>источники копируются в общий массив и для каждого элемента параллельно считается хеш</li>
+     *     <li>номера элементов раскладываются по сегментам по старшим битам хеша, внутри сегмента номера возрастают</li>
+     *     <li>каждый сегмент обрабатывается своей задачей с отдельным {@link SpecialistHashSet},
+     *     равные специалисты всегда попадают в один сегмент, поэтому первое вхождение определяется без синхронизации</li>
+     *     <li>отмеченные первые вхождения собираются в исходном порядке</li>
+     * </ol>
+     * Для небольших входных данных выполняется последовательный {@link #concatDistinct(List)}
+     *
+     * @param sources списки специалистов
+     * @return уникальные специалисты всех списков в порядке первого вхождения
+     */
+    public static List<Specialist> parallelConcatDistinct(List<? extends List<Specialist>> sources) {
+        int total = totalSize(sources);
+        if (total < PARALLEL_THRESHOLD) return concatDistinct(sources);
+
+        Specialist[] all = new Specialist[total];
+        int[] offsets = new int[sources.size() + 1];
+        for (int i = 0; i < sources.size(); i++) {
+            offsets[i + 1] = offsets[i] + sources.get(i).size();
+        }
+        IntStream.range(0, sources.size()).parallel().forEach(i -> {
+            List<Specialist> source = sources.get(i);
+            int offset = offsets[i];
+            for (Specialist specialist : source) {
+                all[offset++] = Objects.requireNonNull(specialist);
+            }
+        });
+        int[] hashes = new int[total];
+        IntStream.range(0, total).parallel().forEach(i -> hashes[i] = SpecialistHashSet.hash(all[i]));
+
+        int shardBits = 32 - Integer.numberOfLeadingZeros(Runtime.getRuntime().availableProcessors() * 4 - 1);
+        int shards = 1 << shardBits;
+        int chunkSize = (total + shards - 1) / shards;
+        // counts[chunk][shard] - сколько элементов части попадает в сегмент
+        int[][] counts = new int[shards][shards];
+        IntStream.range(0, shards).parallel().forEach(chunk -> {
+            for (int i = chunk * chunkSize, end = Math.min(total, i + chunkSize); i < end; i++) {
+                counts[chunk][hashes[i] >>> (32 - shardBits)]++;
+            }
+        });
+        int[] shardStarts = new int[shards + 1];
+        int[][] positions = new int[shards][shards];
+        int position = 0;
+        for (int shard = 0; shard < shards; shard++) {
+            shardStarts[shard] = position;
+            for (int chunk = 0; chunk < shards; chunk++) {
+                positions[chunk][shard] = position;
+                position += counts[chunk][shard];
+            }
+        }
+        shardStarts[shards] = position;
+        int[] order = new int[total];
+        IntStream.range(0, shards).parallel().forEach(chunk -> {
+            int[] next = positions[chunk];
+            for (int i = chunk * chunkSize, end = Math.min(total, i + chunkSize); i < end; i++) {
+                order[next[hashes[i] >>> (32 - shardBits)]++] = i;
+            }
+        });
+        boolean[] first = new boolean[total];
+        IntStream.range(0, shards).parallel().forEach(shard -> {
+            SpecialistHashSet seen = new SpecialistHashSet(shardStarts[shard + 1] - shardStarts[shard]);
+            for (int k = shardStarts[shard]; k < shardStarts[shard + 1]; k++) {
+                int i = order[k];
+                first[i] = seen.add(all[i], hashes[i]);
+            }
+        });
+        List<Specialist> result = new ArrayList<>();
+        for (int i = 0; i < total; i++) {
+            if (first[i]) result.add(all[i]);
+        }
+        return result;
+    }
+
+    private static int totalSize(List<? extends List<Specialist>> sources) {
+        long total = 0;
+        for (List<Specialist> source : sources) {
+            total += source.size();
+        }
+        if (total > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("too many specialists: " + total);
+        return (int) total;
+    }
+}
@@ -0,0 +1,298 @@
+package streamapi;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Выгрузка специалистов в CSV или JSON Lines.
+ * В отличие от {@link StreamAPI#parallelAndForEachOrderedPrintSpecialists(List)}, потоки не ждут друг друга
+ * на forEachOrdered и синхронизированном PrintStream: список делится на части, части форматируются параллельно
+ * в переиспользуемые буферы, а один писатель забирает готовые части по порядку
+ * и записывает их пачками в канал (gathering write). Количество одновременно форматируемых частей ограничено,
+ * буферы принадлежат одной выгрузке и освобождаются после нее.
+ * <p>
+ * Буфер части - текст, байты и {@link CharsetEncoder}: текст кодируется в UTF-8 прямо из {@link StringBuilder}
+ * в байтовый буфер без промежуточных String и byte[]. Буфер возвращается для следующей части после того,
+ * как писатель записал ее байты в канал
+ */
+public class SpecialistExporter {
+    private static final int CHUNK_SIZE = 8192;
+    private static final int MAX_BATCH = 16;
+    // примерная длина строки специалиста, начальный размер буфера части
+    private static final int RECORD_LENGTH = 64;
+
+    /**
+     * Формат выгрузки
+     */
+    public enum Format {
+        /**
+         * Строка заголовка name,salary,speciality, значения с запятыми, кавычками и переводами строк берутся в кавычки.
+         * Пустое поле - null, пустая строка записывается как ""
+         */
+        CSV {
+            @Override
+            void appendHeader(StringBuilder out) {
+                out.append("name,salary,speciality\n");
+            }
+
+            @Override
+            void append(Specialist specialist, StringBuilder out) {
+                appendCsv(specialist.getName(), out);
+                out.append(',').append(specialist.getSalary()).append(',');
+                if (specialist.getSpeciality() != null) out.append(specialist.getSpeciality().name());
+                out.append('\n');
+            }
+        },
+        /**
+         * Один JSON-объект на строку: {"name":...,"salary":...,"speciality":...}
+         */
+        JSON_LINES {
+            @Override
+            void appendHeader(StringBuilder out) {
+            }
+
+            @Override
+            void append(Specialist specialist, StringBuilder out) {
+                out.append("{\"name\":");
+                appendJson(specialist.getName(), out);
+                out.append(",\"salary\":").append(specialist.getSalary()).append(",\"speciality\":");
+                appendJson(specialist.getSpeciality() == null ? null : specialist.getSpeciality().name(), out);
+                out.append("}\n");
+            }
+        };
+
+        abstract void appendHeader(StringBuilder out);
+
+        abstract void append(Specialist specialist, StringBuilder out);
+    }
+
+    /**
+     * Выгрузка в файл, существующий файл перезаписывается
+     *
+     * @param specialists список специалистов
+     * @param path        путь к файлу
+     * @param format      формат выгрузки
+     */
+    public static void export(List<Specialist> specialists, Path path, Format format) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            export(specialists, channel, format);
+        }
+    }
+
+    /**
+     * Выгрузка в канал с сохранением порядка специалистов, канал не закрывается
+     *
+     * @param specialists список специалистов
+     * @param channel     канал для записи
+     * @param format      формат выгрузки
+     */
+    public static void export(List<Specialist> specialists, WritableByteChannel channel, Format format) throws IOException {
+        List<Specialist> source = specialists instanceof RandomAccess ? specialists : new ArrayList<>(specialists);
+        ChunkBuffer header = new ChunkBuffer(RECORD_LENGTH);
+        format.appendHeader(header.text);
+        if (header.text.length() > 0) write(channel, new ByteBuffer[]{header.encode()});
+
+        int chunks = (source.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        int window = ForkJoinPool.commonPool().getParallelism() * 2 + 1;
+        // не больше window буферов, после выгрузки собираются сборщиком мусора вместе с очередью
+        Queue<ChunkBuffer> buffers = new ConcurrentLinkedQueue<>();
+        ArrayDeque<CompletableFuture<ChunkBuffer>> inFlight = new ArrayDeque<>();
+        int next = 0;
+        try {
+            while (next < chunks || !inFlight.isEmpty()) {
+                while (next < chunks && inFlight.size() < window) {
+                    int from = next++ * CHUNK_SIZE;
+                    inFlight.add(CompletableFuture.supplyAsync(() -> formatChunk(source, from, format, buffers)));
+                }
+                // первая часть ждется, следующие берутся в пачку, только если уже готовы
+                List<ChunkBuffer> batch = new ArrayList<>();
+                batch.add(join(inFlight.poll()));
+                while (batch.size() < MAX_BATCH && !inFlight.isEmpty() && inFlight.peek().isDone()) {
+                    batch.add(join(inFlight.poll()));
+                }
+                ByteBuffer[] bytes = new ByteBuffer[batch.size()];
+                for (int i = 0; i < bytes.length; i++) {
+                    bytes[i] = batch.get(i).bytes;
+                }
+                write(channel, bytes);
+                buffers.addAll(batch);
+            }
+        } finally {
+            for (CompletableFuture<ChunkBuffer> future : inFlight) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * @return буфер с байтами части, возвращается в buffers писателем после записи
+     */
+    private static ChunkBuffer formatChunk(List<Specialist> source, int from, Format format, Queue<ChunkBuffer> buffers) {
+        ChunkBuffer buffer = buffers.poll();
+        if (buffer == null) buffer = new ChunkBuffer(CHUNK_SIZE * RECORD_LENGTH);
+        try {
+            buffer.text.setLength(0);
+            for (int i = from, to = Math.min(source.size(), from + CHUNK_SIZE); i < to; i++) {
+                format.append(source.get(i), buffer.text);
+            }
+            buffer.encode();
+            return buffer;
+        } catch (RuntimeException | Error e) {
+            buffers.add(buffer);
+            throw e;
+        }
+    }
+
+    private static ChunkBuffer join(CompletableFuture<ChunkBuffer> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw e;
+        }
+    }
+
+    private static void write(WritableByteChannel channel, ByteBuffer[] buffers) throws IOException {
+        if (channel instanceof GatheringByteChannel) {
+            GatheringByteChannel gathering = (GatheringByteChannel) channel;
+            long remaining = 0;
+            for (ByteBuffer buffer : buffers) {
+                remaining += buffer.remaining();
+            }
+            while (remaining > 0) {
+                remaining -= gathering.write(buffers);
+            }
+        } else {
+            for (ByteBuffer buffer : buffers) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        }
+    }
+
+    /**
+     * Текст части и его байты в UTF-8, используется одним потоком за раз
+     */
+    private static class ChunkBuffer {
+        final StringBuilder text;
+        // некорректные суррогатные пары заменяются '?', как в String.getBytes
+        final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        ByteBuffer bytes;
+
+        ChunkBuffer(int capacity) {
+            this.text = new StringBuilder(capacity);
+            this.bytes = ByteBuffer.allocate(capacity);
+        }
+
+        /**
+         * @return байты текста, готовые к чтению; буфер растет, если текст в него не поместился
+         */
+        ByteBuffer encode() {
+            CharBuffer in = CharBuffer.wrap(text);
+            encoder.reset();
+            bytes.clear();
+            CoderResult result;
+            while ((result = encoder.encode(in, bytes, true)).isOverflow()) {
+                grow();
+            }
+            if (result.isError()) throwUnchecked(result);
+            while ((result = encoder.flush(bytes)).isOverflow()) {
+                grow();
+            }
+            bytes.flip();
+            return bytes;
+        }
+
+        private void grow() {
+            ByteBuffer grown = ByteBuffer.allocate(bytes.capacity() * 2);
+            bytes.flip();
+            grown.put(bytes);
+            bytes = grown;
+        }
+
+        private static void throwUnchecked(CoderResult result) {
+            try {
+                result.throwException();
+            } catch (CharacterCodingException e) {
+                // при CodingErrorAction.REPLACE не возникает
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static void appendCsv(String value, StringBuilder out) {
+        if (value == null) return;
+        boolean quote = value.isEmpty();
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.append(value);
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') out.append('"');
+            out.append(c);
+        }
+        out.append('"');
+    }
+
+    private static void appendJson(String value, StringBuilder out) {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,263 @@
+package streamapi;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Бинарный файл специалистов, отображаемый в память (memory-mapped).
+ * <p>
+ * Формат (little-endian):
+ * <ul>
+ *     <li>заголовок 32 байта: сигнатура SPCL, версия, количество записей, смещение и длина секции имен</li>
+ *     <li>секция записей фиксированной длины 16 байт: зарплата (int), ordinal специальности (byte, -1 для null),
+ *     признак null-имени (byte), длина имени в байтах UTF-8 (unsigned short), смещение имени в секции имен (long)</li>
+ *     <li>секция имен: строки в UTF-8 без разделителей, повторяющиеся имена записываются один раз</li>
+ * </ul>
+ * Открытие файла только отображает его в память, записи читаются по номеру без десериализации всего файла,
+ * имя декодируется только при обращении к нему. Отображенная память освобождается сборщиком мусора,
+ * {@link #close()} закрывает только канал
+ */
+public class SpecialistFile implements Closeable {
+    private static final int MAGIC = 0x4C435053; // "SPCL"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int RECORD_SIZE = 16;
+    private static final int MAX_NAME_LENGTH = 0xFFFF;
+    private static final int RECORDS_PER_CHUNK = 1 << 26; // 1 ГБ записей на одно отображение
+    private static final long NAMES_CHUNK_SIZE = 1L << 30;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final Speciality[] SPECIALITIES = Speciality.values();
+
+    private final FileChannel channel;
+    private final long size;
+    private final ByteBuffer[] records;
+    private final ByteBuffer[] names;
+
+    private SpecialistFile(FileChannel channel, long size, ByteBuffer[] records, ByteBuffer[] names) {
+        this.channel = channel;
+        this.size = size;
+        this.records = records;
+        this.names = names;
+    }
+
+    /**
+     * Запись специалистов в файл, существующий файл перезаписывается
+     *
+     * @param path        путь к файлу
+     * @param specialists специалисты
+     */
+    public static void write(Path path, Collection<? extends Specialist> specialists) throws IOException {
+        long count = specialists.size();
+        long namesOffset = HEADER_SIZE + count * RECORD_SIZE;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer recordBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer nameBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            Map<String, Long> nameOffsets = new HashMap<>();
+            long recordPosition = HEADER_SIZE;
+            long namePosition = namesOffset;
+            long namesLength = 0;
+            long written = 0;
+            for (Specialist specialist : specialists) {
+                if (written++ == count) throw new ConcurrentModificationException();
+                String name = specialist.getName();
+                byte[] nameBytes = null;
+                long nameOffset = 0;
+                if (name != null) {
+                    Long knownOffset = nameOffsets.get(name);
+                    nameBytes = name.getBytes(StandardCharsets.UTF_8);
+                    if (nameBytes.length > MAX_NAME_LENGTH) {
+                        throw new IllegalArgumentException("name is longer than " + MAX_NAME_LENGTH + " bytes: " + name);
+                    }
+                    if (knownOffset == null) {
+                        nameOffset = namesLength;
+                        nameOffsets.put(name, nameOffset);
+                        namesLength += nameBytes.length;
+                        for (int i = 0; i < nameBytes.length; ) {
+                            if (!nameBuffer.hasRemaining()) namePosition += flush(channel, nameBuffer, namePosition);
+                            int length = Math.min(nameBuffer.remaining(), nameBytes.length - i);
+                            nameBuffer.put(nameBytes, i, length);
+                            i += length;
+                        }
+                    } else {
+                        nameOffset = knownOffset;
+                    }
+                }
+                if (recordBuffer.remaining() < RECORD_SIZE) recordPosition += flush(channel, recordBuffer, recordPosition);
+                recordBuffer.putInt(specialist.getSalary());
+                recordBuffer.put((byte) (specialist.getSpeciality() == null ? -1 : specialist.getSpeciality().ordinal()));
+                recordBuffer.put((byte) (name == null ? 1 : 0));
+                recordBuffer.putShort((short) (nameBytes == null ? 0 : nameBytes.length));
+                recordBuffer.putLong(nameOffset);
+            }
+            if (written != count) throw new ConcurrentModificationException();
+            flush(channel, recordBuffer, recordPosition);
+            flush(channel, nameBuffer, namePosition);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putLong(count).putLong(namesOffset).putLong(namesLength);
+            flush(channel, header, 0);
+        }
+    }
+
+    /**
+     * Открытие файла, записи и имена отображаются в память частями до 1 ГБ
+     *
+     * @param path путь к файлу
+     * @return открытый файл специалистов
+     */
+    public static SpecialistFile open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) throw new IOException("truncated header: " + path);
+            }
+            header.flip();
+            if (header.getInt() != MAGIC) throw new IOException("not a specialist file: " + path);
+            int version = header.getInt();
+            if (version != VERSION) throw new IOException("unsupported specialist file version " + version + ": " + path);
+            long size = header.getLong();
+            long namesOffset = header.getLong();
+            long namesLength = header.getLong();
+            if (namesOffset != HEADER_SIZE + size * RECORD_SIZE || namesOffset + namesLength > channel.size()) {
+                throw new IOException("corrupted specialist file: " + path);
+            }
+            ByteBuffer[] records = new ByteBuffer[(int) ((size + RECORDS_PER_CHUNK - 1) / RECORDS_PER_CHUNK)];
+            for (int i = 0; i < records.length; i++) {
+                long first = (long) i * RECORDS_PER_CHUNK;
+                long length = Math.min(RECORDS_PER_CHUNK, size - first) * RECORD_SIZE;
+                records[i] = map(channel, HEADER_SIZE + first * RECORD_SIZE, length);
+            }
+            // части секции имен перекрываются на максимальную длину имени, чтобы имя не разрывалось между частями
+            ByteBuffer[] names = new ByteBuffer[(int) ((namesLength + NAMES_CHUNK_SIZE - 1) / NAMES_CHUNK_SIZE)];
+            for (int i = 0; i < names.length; i++) {
+                long start = i * NAMES_CHUNK_SIZE;
+                long length = Math.min(NAMES_CHUNK_SIZE + MAX_NAME_LENGTH, namesLength - start);
+                names[i] = map(channel, namesOffset + start, length);
+            }
+            return new SpecialistFile(channel, size, records, names);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public int getSalary(long row) {
+        return record(row).getInt(recordIndex(row));
+    }
+
+    public Speciality getSpeciality(long row) {
+        byte ordinal = record(row).get(recordIndex(row) + 4);
+        return ordinal < 0 ? null : SPECIALITIES[ordinal];
+    }
+
+    /**
+     * Имя декодируется из секции имен при каждом вызове
+     */
+    public String getName(long row) {
+        ByteBuffer record = record(row);
+        int index = recordIndex(row);
+        if (record.get(index + 5) != 0) return null;
+        int length = Short.toUnsignedInt(record.getShort(index + 6));
+        // пустое имя не занимает места в секции имен, его смещение может указывать за последнюю часть
+        if (length == 0) return "";
+        long offset = record.getLong(index + 8);
+        byte[] bytes = new byte[length];
+        names[(int) (offset / NAMES_CHUNK_SIZE)].get((int) (offset % NAMES_CHUNK_SIZE), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return новый объект специалиста, прочитанный из записи
+     */
+    public Specialist getSpecialist(long row) {
+        return new Specialist(getName(row), getSalary(row), getSpeciality(row));
+    }
+
+    /**
+     * @return поток зарплат, читается только секция записей
+     */
+    public IntStream salaries() {
+        return LongStream.range(0, size).mapToInt(this::getSalary);
+    }
+
+    /**
+     * @return поток специалистов, каждый специалист создается только при прохождении через поток
+     */
+    public Stream<Specialist> stream() {
+        return LongStream.range(0, size).mapToObj(this::getSpecialist);
+    }
+
+    /**
+     * Аналог {@link StreamAPI#filterSpecialistsBySpeciality(List, Speciality)},
+     * специалист создается только для подходящих записей
+     */
+    public List<Specialist> filterSpecialistsBySpeciality(Speciality speciality) {
+        List<Specialist> result = new ArrayList<>();
+        if (speciality == null) return result;
+        for (long row = 0; row < size; row++) {
+            if (record(row).get(recordIndex(row) + 4) == speciality.ordinal()) {
+                result.add(getSpecialist(row));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Аналог {@link StreamAPI#countSpecialistWithSalaryOverMill(List)}
+     */
+    public long countSpecialistWithSalaryOverMill() {
+        return salaries().filter(salary -> salary >= 1000000).count();
+    }
+
+    /**
+     * Аналог {@link StreamAPI#getIntSummaryStatistics(List)}
+     */
+    public IntSummaryStatistics getIntSummaryStatistics() {
+        return salaries().summaryStatistics();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private ByteBuffer record(long row) {
+        Objects.checkIndex(row, size);
+        return records[(int) (row / RECORDS_PER_CHUNK)];
+    }
+
+    private static int recordIndex(long row) {
+        return (int) (row % RECORDS_PER_CHUNK) * RECORD_SIZE;
+    }
+
+    private static ByteBuffer map(FileChannel channel, long position, long length) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        return buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static long flush(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        buffer.flip();
+        long written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        buffer.clear();
+        return written;
+    }
+}
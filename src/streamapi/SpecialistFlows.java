@@ -0,0 +1,359 @@
+package streamapi;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+/**
+ * Операторы takeWhile, dropWhile и allMatch/anyMatch/noneMatch над бесконечными потоками изменений
+ * ({@link Flow.Publisher}) вместо готового списка.
+ * <p>
+ * takeWhile и dropWhile - {@link Flow.Processor} без буфера: запросы подписчика передаются источнику,
+ * на каждый отброшенный dropWhile элемент источнику запрашивается еще один. takeWhile завершает подписчика
+ * и отменяет подписку на источник на первом неподходящем элементе.
+ * <p>
+ * Операторы match возвращают {@link CompletableFuture}, который завершается, как только результат определен:
+ * на первом решающем элементе подписка на источник отменяется, иначе результат определяется завершением источника.
+ * Элементы запрашиваются пачками по {@value #MATCH_BATCH}, отмена future отменяет подписку
+ */
+public class SpecialistFlows {
+    private static final long MATCH_BATCH = 64;
+
+    /**
+     * Аналог {@link StreamAPI#takeWhileElements(java.util.List)}
+     */
+    public static Flow.Publisher<Specialist> takeWhileElements(Flow.Publisher<Specialist> source) {
+        return takeWhile(source, s -> s.getSalary() >= 1000000);
+    }
+
+    /**
+     * Аналог {@link StreamAPI#dropWhileTest(java.util.List)}
+     */
+    public static Flow.Publisher<Specialist> dropWhileTest(Flow.Publisher<Specialist> source) {
+        return dropWhile(source, s -> s.getSalary() >= 1000000);
+    }
+
+    /**
+     * Аналог {@link StreamAPI#anyMatchIsTeamHasBusinessAnalyst(java.util.List)}
+     */
+    public static CompletableFuture<Boolean> anyMatchIsTeamHasBusinessAnalyst(Flow.Publisher<Specialist> source) {
+        return anyMatch(source, s -> s.getSpeciality() == Speciality.BUSINESS_ANALYST);
+    }
+
+    /**
+     * Аналог {@link StreamAPI#noneMatchCheck(java.util.List)}
+     */
+    public static CompletableFuture<Boolean> noneMatchCheck(Flow.Publisher<Specialist> source) {
+        return noneMatch(source, s -> s.getSalary() > 2000000);
+    }
+
+    /**
+     * @param source    источник
+     * @param predicate условие
+     * @return элементы источника, пока они удовлетворяют условию
+     */
+    public static <T> Flow.Publisher<T> takeWhile(Flow.Publisher<T> source, Predicate<? super T> predicate) {
+        TakeWhile<T> processor = new TakeWhile<>(predicate);
+        source.subscribe(processor);
+        return processor;
+    }
+
+    /**
+     * @param source    источник
+     * @param predicate условие
+     * @return элементы источника, начиная с первого, не удовлетворяющего условию
+     */
+    public static <T> Flow.Publisher<T> dropWhile(Flow.Publisher<T> source, Predicate<? super T> predicate) {
+        DropWhile<T> processor = new DropWhile<>(predicate);
+        source.subscribe(processor);
+        return processor;
+    }
+
+    /**
+     * @return true, как только элемент удовлетворяет условию, false при завершении источника
+     */
+    public static <T> CompletableFuture<Boolean> anyMatch(Flow.Publisher<T> source, Predicate<? super T> predicate) {
+        return match(source, predicate, true, true);
+    }
+
+    /**
+     * @return false, как только элемент не удовлетворяет условию, true при завершении источника
+     */
+    public static <T> CompletableFuture<Boolean> allMatch(Flow.Publisher<T> source, Predicate<? super T> predicate) {
+        return match(source, predicate, false, false);
+    }
+
+    /**
+     * @return false, как только элемент удовлетворяет условию, true при завершении источника
+     */
+    public static <T> CompletableFuture<Boolean> noneMatch(Flow.Publisher<T> source, Predicate<? super T> predicate) {
+        return match(source, predicate, true, false);
+    }
+
+    private static <T> CompletableFuture<Boolean> match(Flow.Publisher<T> source, Predicate<? super T> predicate,
+                                                        boolean stopOn, boolean resultOnStop) {
+        MatchSubscriber<T> subscriber = new MatchSubscriber<>(predicate, stopOn, resultOnStop);
+        source.subscribe(subscriber);
+        return subscriber.result;
+    }
+
+    /**
+     * Результат определяется первым элементом, для которого условие равно stopOn, и в этом случае равен resultOnStop,
+     * как в {@link SpecialistQuery}
+     */
+    private static class MatchSubscriber<T> implements Flow.Subscriber<T> {
+        final CompletableFuture<Boolean> result = new CompletableFuture<>();
+        private final Predicate<? super T> predicate;
+        private final boolean stopOn;
+        private final boolean resultOnStop;
+        private Flow.Subscription subscription;
+        private long remaining;
+
+        MatchSubscriber(Predicate<? super T> predicate, boolean stopOn, boolean resultOnStop) {
+            this.predicate = Objects.requireNonNull(predicate);
+            this.stopOn = stopOn;
+            this.resultOnStop = resultOnStop;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            if (this.subscription != null) {
+                subscription.cancel();
+                return;
+            }
+            this.subscription = subscription;
+            result.whenComplete((value, error) -> subscription.cancel());
+            if (result.isDone()) return;
+            remaining = MATCH_BATCH;
+            subscription.request(MATCH_BATCH);
+        }
+
+        @Override
+        public void onNext(T item) {
+            if (result.isDone()) return;
+            boolean decided;
+            try {
+                decided = predicate.test(item) == stopOn;
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            if (decided) {
+                result.complete(resultOnStop);
+            } else if (--remaining == MATCH_BATCH / 2) {
+                // следующая пачка запрашивается заранее, чтобы источник не простаивал
+                remaining += MATCH_BATCH;
+                subscription.request(MATCH_BATCH);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            result.complete(!resultOnStop);
+        }
+    }
+
+    private static class TakeWhile<T> extends Relay<T> {
+        private final Predicate<? super T> predicate;
+
+        TakeWhile(Predicate<? super T> predicate) {
+            this.predicate = Objects.requireNonNull(predicate);
+        }
+
+        @Override
+        void next(T item) {
+            if (predicate.test(item)) {
+                emit(item);
+            } else {
+                complete();
+            }
+        }
+    }
+
+    private static class DropWhile<T> extends Relay<T> {
+        private final Predicate<? super T> predicate;
+        private boolean dropping = true;
+
+        DropWhile(Predicate<? super T> predicate) {
+            this.predicate = Objects.requireNonNull(predicate);
+        }
+
+        @Override
+        void next(T item) {
+            if (dropping && predicate.test(item)) {
+                // отброшенный элемент не удовлетворил запрос подписчика
+                requestUpstream(1);
+                return;
+            }
+            dropping = false;
+            emit(item);
+        }
+    }
+
+    /**
+     * Процессор с одним подписчиком, который передает запросы и отмену источнику.
+     * Запросы подписчика до подписки на источник и до возврата из его onSubscribe накапливаются и передаются,
+     * когда есть и источник, и подписчик. Завершение источника до этого момента передается подписчику
+     * после onSubscribe
+     */
+    private abstract static class Relay<T> implements Flow.Processor<T, T>, Flow.Subscription {
+        private final AtomicReference<Flow.Subscription> upstream = new AtomicReference<>();
+        private final AtomicLong pendingRequests = new AtomicLong();
+        private final AtomicBoolean subscribed = new AtomicBoolean();
+        private final AtomicBoolean done = new AtomicBoolean();
+        private volatile boolean cancelled;
+        private volatile Flow.Subscriber<? super T> downstream;
+        // завершение источника до подписки подписчика, передается ему при подписке
+        private boolean terminated;
+        private Throwable terminalError;
+
+        abstract void next(T item);
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super T> subscriber) {
+            Objects.requireNonNull(subscriber);
+            if (!subscribed.compareAndSet(false, true)) {
+                subscriber.onSubscribe(new Flow.Subscription() {
+                    @Override
+                    public void request(long n) {
+                    }
+
+                    @Override
+                    public void cancel() {
+                    }
+                });
+                subscriber.onError(new IllegalStateException("only one subscriber is supported"));
+                return;
+            }
+            // сигналы подписчику возможны только после возврата из onSubscribe, до этого downstream пуст
+            subscriber.onSubscribe(this);
+            boolean deliver;
+            synchronized (this) {
+                downstream = subscriber;
+                deliver = terminated;
+            }
+            if (deliver) {
+                signal(subscriber, terminalError);
+            } else {
+                drainRequests();
+            }
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            if (!upstream.compareAndSet(null, subscription)) {
+                subscription.cancel();
+                return;
+            }
+            if (cancelled) {
+                subscription.cancel();
+                return;
+            }
+            drainRequests();
+        }
+
+        @Override
+        public void onNext(T item) {
+            if (done.get()) return;
+            try {
+                next(item);
+            } catch (RuntimeException e) {
+                cancelUpstream();
+                terminate(e);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            terminate(Objects.requireNonNull(throwable));
+        }
+
+        @Override
+        public void onComplete() {
+            terminate(null);
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                cancelUpstream();
+                terminate(new IllegalArgumentException("request must be positive: " + n));
+                return;
+            }
+            requestUpstream(n);
+        }
+
+        @Override
+        public void cancel() {
+            done.set(true);
+            cancelUpstream();
+        }
+
+        void emit(T item) {
+            downstream.onNext(item);
+        }
+
+        void complete() {
+            cancelUpstream();
+            onComplete();
+        }
+
+        void requestUpstream(long n) {
+            Flow.Subscription subscription = upstream.get();
+            if (subscription != null && downstream != null) {
+                subscription.request(n);
+                return;
+            }
+            pendingRequests.accumulateAndGet(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+            // источник или подписчик могли подписаться после проверки, тогда накопленные запросы забираются здесь
+            drainRequests();
+        }
+
+        private void drainRequests() {
+            Flow.Subscription subscription = upstream.get();
+            if (subscription == null || downstream == null) return;
+            long pending = pendingRequests.getAndSet(0);
+            if (pending > 0) subscription.request(pending);
+        }
+
+        private void cancelUpstream() {
+            cancelled = true;
+            Flow.Subscription subscription = upstream.get();
+            if (subscription != null) subscription.cancel();
+        }
+
+        /**
+         * @param error ошибка или null при успешном завершении
+         */
+        private void terminate(Throwable error) {
+            if (!done.compareAndSet(false, true)) return;
+            Flow.Subscriber<? super T> subscriber;
+            synchronized (this) {
+                subscriber = downstream;
+                if (subscriber == null) {
+                    terminated = true;
+                    terminalError = error;
+                    return;
+                }
+            }
+            signal(subscriber, error);
+        }
+
+        private static void signal(Flow.Subscriber<?> subscriber, Throwable error) {
+            if (error == null) {
+                subscriber.onComplete();
+            } else {
+                subscriber.onError(error);
+            }
+        }
+    }
+}
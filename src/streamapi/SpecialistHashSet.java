@@ -0,0 +1,108 @@
+package streamapi;
+
+import java.util.Objects;
+
+/**
+ * Множество специалистов с открытой адресацией (линейное пробирование).
+ * Равенство определяется {@link Specialist#equals(Object)}, хеш считается {@link #hash(Specialist)}
+ * по полям записи без выделения памяти и хранится рядом со ссылкой, поэтому при коллизиях
+ * equals вызывается только для совпавших хешей. Удаление не поддерживается, класс не потокобезопасен
+ */
+public class SpecialistHashSet {
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private Specialist[] keys;
+    private int[] hashes;
+    private int size;
+    private int mask;
+
+    public SpecialistHashSet() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize ожидаемое количество элементов, таблица заполняется не больше чем наполовину
+     */
+    public SpecialistHashSet(int expectedSize) {
+        int capacity = tableSizeFor(Math.max(4, (long) expectedSize * 2));
+        keys = new Specialist[capacity];
+        hashes = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Хеш по имени, зарплате и ordinal специальности с перемешиванием битов (финализатор MurmurHash3).
+     * В отличие от {@link Specialist#hashCode()} не зависит от identity-хеша enum и одинаков между запусками
+     *
+     * @param specialist специалист
+     * @return хеш специалиста
+     */
+    public static int hash(Specialist specialist) {
+        int h = Objects.hashCode(specialist.getName());
+        h = 31 * h + specialist.getSalary();
+        h = 31 * h + (specialist.getSpeciality() == null ? -1 : specialist.getSpeciality().ordinal());
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * @param specialist специалист
+     * @return true, если равного специалиста в множестве не было
+     */
+    public boolean add(Specialist specialist) {
+        return add(specialist, hash(specialist));
+    }
+
+    /**
+     * Добавление с заранее посчитанным хешем {@link #hash(Specialist)}
+     */
+    public boolean add(Specialist specialist, int hash) {
+        Objects.requireNonNull(specialist);
+        int index = hash & mask;
+        for (Specialist key; (key = keys[index]) != null; index = (index + 1) & mask) {
+            if (hashes[index] == hash && key.equals(specialist)) return false;
+        }
+        keys[index] = specialist;
+        hashes[index] = hash;
+        if (++size > keys.length >>> 1) grow();
+        return true;
+    }
+
+    public boolean contains(Specialist specialist) {
+        int hash = hash(specialist);
+        int index = hash & mask;
+        for (Specialist key; (key = keys[index]) != null; index = (index + 1) & mask) {
+            if (hashes[index] == hash && key.equals(specialist)) return true;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void grow() {
+        if (keys.length == MAX_CAPACITY) throw new IllegalStateException("set is full");
+        Specialist[] oldKeys = keys;
+        int[] oldHashes = hashes;
+        keys = new Specialist[oldKeys.length * 2];
+        hashes = new int[oldKeys.length * 2];
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == null) continue;
+            int index = oldHashes[i] & mask;
+            while (keys[index] != null) index = (index + 1) & mask;
+            keys[index] = oldKeys[i];
+            hashes[index] = oldHashes[i];
+        }
+    }
+
+    private static int tableSizeFor(long size) {
+        if (size >= MAX_CAPACITY) return MAX_CAPACITY;
+        return Integer.highestOneBit((int) size - 1) << 1;
+    }
+}
@@ -0,0 +1,17 @@
+package streamapi;
+
+/**
+ * Слушатель изменений специалиста, вызывается сеттерами {@link Specialist} после изменения значения поля.
+ * Используется контейнерами, которые строят индексы и агрегаты по полям специалистов
+ */
+public interface SpecialistListener {
+
+    default void nameChanged(Specialist specialist, String oldName) {
+    }
+
+    default void salaryChanged(Specialist specialist, int oldSalary) {
+    }
+
+    default void specialityChanged(Specialist specialist, Speciality oldSpeciality) {
+    }
+}
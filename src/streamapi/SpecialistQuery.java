@@ -0,0 +1,258 @@
+package streamapi;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Запрос из нескольких агрегатов, которые вычисляются за один проход по специалистам.
+ * Агрегаты объявляются заранее, каждый метод объявления возвращает {@link Result},
+ * значение которого доступно после выполнения {@link #execute(Iterable)}.
+ * Предикаты allMatch/anyMatch/noneMatch перестают проверяться, как только их результат определен,
+ * а если определены все агрегаты запроса, проход по данным завершается досрочно.
+ * <pre>{@code
+ * SpecialistQuery query = new SpecialistQuery();
+ * Result<Long> overMill = query.count(s -> s.getSalary() >= 1000000);
+ * Result<Boolean> hasAnalyst = query.anyMatch(s -> s.getSpeciality() == Speciality.BUSINESS_ANALYST);
+ * Result<IntSummaryStatistics> statistics = query.summaryStatistics(Specialist::getSalary);
+ * query.execute(specialists);
+ * }</pre>
+ */
+public class SpecialistQuery {
+    private final List<Aggregate<?>> aggregates = new ArrayList<>();
+    private boolean executed;
+
+    /**
+     * Аналог filter + count
+     *
+     * @param predicate условие
+     * @return количество специалистов, удовлетворяющих условию
+     */
+    public Result<Long> count(Predicate<? super Specialist> predicate) {
+        Objects.requireNonNull(predicate);
+        return add(new Aggregate<Long>() {
+            private long count;
+
+            @Override
+            boolean accept(Specialist specialist) {
+                if (predicate.test(specialist)) count++;
+                return false;
+            }
+
+            @Override
+            Long value() {
+                return count;
+            }
+        });
+    }
+
+    /**
+     * Аналог allMatch, после первого несоответствия условию предикат больше не проверяется
+     *
+     * @param predicate условие
+     * @return true, если все специалисты удовлетворяют условию
+     */
+    public Result<Boolean> allMatch(Predicate<? super Specialist> predicate) {
+        return add(new MatchAggregate(predicate, false, false));
+    }
+
+    /**
+     * Аналог anyMatch, после первого соответствия условию предикат больше не проверяется
+     *
+     * @param predicate условие
+     * @return true, если хоть один специалист удовлетворяет условию
+     */
+    public Result<Boolean> anyMatch(Predicate<? super Specialist> predicate) {
+        return add(new MatchAggregate(predicate, true, true));
+    }
+
+    /**
+     * Аналог noneMatch, после первого соответствия условию предикат больше не проверяется
+     *
+     * @param predicate условие
+     * @return true, если ни один специалист не удовлетворяет условию
+     */
+    public Result<Boolean> noneMatch(Predicate<? super Specialist> predicate) {
+        return add(new MatchAggregate(predicate, true, false));
+    }
+
+    /**
+     * Аналог mapToInt + summaryStatistics
+     *
+     * @param mapper преобразование специалиста в число
+     * @return статистика по числам
+     */
+    public Result<IntSummaryStatistics> summaryStatistics(ToIntFunction<? super Specialist> mapper) {
+        Objects.requireNonNull(mapper);
+        return add(new Aggregate<IntSummaryStatistics>() {
+            private final IntSummaryStatistics statistics = new IntSummaryStatistics();
+
+            @Override
+            boolean accept(Specialist specialist) {
+                statistics.accept(mapper.applyAsInt(specialist));
+                return false;
+            }
+
+            @Override
+            IntSummaryStatistics value() {
+                return statistics;
+            }
+        });
+    }
+
+    /**
+     * Аналог Collectors.groupingBy
+     *
+     * @param classifier функция получения ключа
+     * @param <K>        тип ключа
+     * @return мапа, где ключом является результат функции, а значением список специалистов в порядке обхода
+     */
+    public <K> Result<Map<K, List<Specialist>>> groupBy(Function<? super Specialist, ? extends K> classifier) {
+        Objects.requireNonNull(classifier);
+        return add(new Aggregate<Map<K, List<Specialist>>>() {
+            private final Map<K, List<Specialist>> groups = new HashMap<>();
+
+            @Override
+            boolean accept(Specialist specialist) {
+                K key = Objects.requireNonNull(classifier.apply(specialist), "element cannot be mapped to a null key");
+                groups.computeIfAbsent(key, k -> new ArrayList<>()).add(specialist);
+                return false;
+            }
+
+            @Override
+            Map<K, List<Specialist>> value() {
+                return groups;
+            }
+        });
+    }
+
+    /**
+     * Аналог Collectors.partitioningBy
+     *
+     * @param predicate условие
+     * @return мапа, где ключом является выполнение условия, а значением список специалистов
+     */
+    public Result<Map<Boolean, List<Specialist>>> partitionBy(Predicate<? super Specialist> predicate) {
+        Objects.requireNonNull(predicate);
+        return add(new Aggregate<Map<Boolean, List<Specialist>>>() {
+            private final List<Specialist> matched = new ArrayList<>();
+            private final List<Specialist> notMatched = new ArrayList<>();
+
+            @Override
+            boolean accept(Specialist specialist) {
+                (predicate.test(specialist) ? matched : notMatched).add(specialist);
+                return false;
+            }
+
+            @Override
+            Map<Boolean, List<Specialist>> value() {
+                Map<Boolean, List<Specialist>> partitions = new HashMap<>();
+                partitions.put(false, notMatched);
+                partitions.put(true, matched);
+                return partitions;
+            }
+        });
+    }
+
+    /**
+     * Выполнение всех объявленных агрегатов за один проход, запрос выполняется только один раз
+     *
+     * @param specialists специалисты
+     * @return этот запрос
+     */
+    public SpecialistQuery execute(Iterable<? extends Specialist> specialists) {
+        if (executed) throw new IllegalStateException("query has already been executed");
+        executed = true;
+        Aggregate<?>[] active = aggregates.toArray(new Aggregate<?>[0]);
+        int activeCount = active.length;
+        Iterator<? extends Specialist> iterator = specialists.iterator();
+        while (activeCount > 0 && iterator.hasNext()) {
+            Specialist specialist = iterator.next();
+            for (int i = 0; i < activeCount; ) {
+                if (active[i].accept(specialist)) {
+                    // результат определен - агрегат убирается из прохода
+                    active[i] = active[--activeCount];
+                    active[activeCount] = null;
+                } else {
+                    i++;
+                }
+            }
+        }
+        for (Aggregate<?> aggregate : aggregates) {
+            aggregate.complete();
+        }
+        return this;
+    }
+
+    private <T> Result<T> add(Aggregate<T> aggregate) {
+        if (executed) throw new IllegalStateException("query has already been executed");
+        aggregates.add(aggregate);
+        return aggregate.result;
+    }
+
+    /**
+     * Результат агрегата, доступен после выполнения запроса
+     *
+     * @param <T> тип результата
+     */
+    public static class Result<T> {
+        private T value;
+        private boolean done;
+
+        public T get() {
+            if (!done) throw new IllegalStateException("query has not been executed");
+            return value;
+        }
+
+        public boolean isDone() {
+            return done;
+        }
+    }
+
+    private abstract static class Aggregate<T> {
+        final Result<T> result = new Result<>();
+
+        /**
+         * @return true, если результат определен и специалисты больше не нужны
+         */
+        abstract boolean accept(Specialist specialist);
+
+        abstract T value();
+
+        void complete() {
+            result.value = value();
+            result.done = true;
+        }
+    }
+
+    /**
+     * Агрегат allMatch/anyMatch/noneMatch: результат определяется первым элементом,
+     * для которого условие равно stopOn, и в этом случае равен resultOnStop
+     */
+    private static class MatchAggregate extends Aggregate<Boolean> {
+        private final Predicate<? super Specialist> predicate;
+        private final boolean stopOn;
+        private final boolean resultOnStop;
+        private boolean stopped;
+
+        MatchAggregate(Predicate<? super Specialist> predicate, boolean stopOn, boolean resultOnStop) {
+            this.predicate = Objects.requireNonNull(predicate);
+            this.stopOn = stopOn;
+            this.resultOnStop = resultOnStop;
+        }
+
+        @Override
+        boolean accept(Specialist specialist) {
+            if (predicate.test(specialist) == stopOn) {
+                stopped = true;
+            }
+            return stopped;
+        }
+
+        @Override
+        Boolean value() {
+            return stopped ? resultOnStop : !resultOnStop;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package streamapi;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+
+/**
+ * Неизменяемое представление специалиста для безопасного разделения между потоками, кешами и параллельными стримами.
+ * <p>
+ * Имена хранятся в общем словаре: одинаковые имена из разных источников ссылаются на одну строку.
+ * Словарь держит имена по слабым ссылкам и не растет бесконечно: имя удаляется из него сборщиком мусора,
+ * когда на строку не ссылается ни одна запись. Словарь разбит на {@value #NAME_STRIPES} частей по хешу имени
+ * со своей блокировкой у каждой, поэтому параллельная загрузка не ждет одного монитора.
+ * <p>
+ * Специальность хранится номером в byte. Запись занимает 24 байта при сжатых ссылках (заголовок 12,
+ * ссылка на имя 4, зарплата 4, специальность 1 и 3 байта выравнивания) против 32 байт {@link Specialist},
+ * у которого есть ссылка на слушателей. Основная экономия - в общих строках имен (не меньше 40 байт на строку
+ * с массивом байт). Хеш не хранится: отдельное поле увеличило бы запись до 32 байт, а хеш имени и так кеширует String.
+ * Изменение - только созданием копии методами with*, пакетные изменения списка - через {@link RecordRoster}
+ */
+public final class SpecialistRecord {
+    private static final Speciality[] SPECIALITIES = Speciality.values();
+    private static final byte NO_SPECIALITY = -1;
+    private static final int NAME_STRIPES = 64;
+    // ключ и значение - слабые ссылки на одну строку, обращения к части синхронизированы на ней
+    private static final Map<String, WeakReference<String>>[] NAMES = names();
+
+    private final String name;
+    private final int salary;
+    private final byte speciality;
+
+    private SpecialistRecord(String name, int salary, byte speciality) {
+        this.name = name;
+        this.salary = salary;
+        this.speciality = speciality;
+    }
+
+    public static SpecialistRecord of(String name, int salary, Speciality speciality) {
+        return new SpecialistRecord(intern(name), salary, speciality == null ? NO_SPECIALITY : (byte) speciality.ordinal());
+    }
+
+    public static SpecialistRecord of(Specialist specialist) {
+        return of(specialist.getName(), specialist.getSalary(), specialist.getSpeciality());
+    }
+
+    /**
+     * @param name имя
+     * @return строка из словаря имен, равная name
+     */
+    public static String intern(String name) {
+        if (name == null) return null;
+        int hash = name.hashCode();
+        Map<String, WeakReference<String>> names = NAMES[(hash ^ (hash >>> 16)) & (NAME_STRIPES - 1)];
+        synchronized (names) {
+            WeakReference<String> reference = names.get(name);
+            String canonical = reference == null ? null : reference.get();
+            if (canonical != null) return canonical;
+            names.put(name, new WeakReference<>(name));
+            return name;
+        }
+    }
+
+    /**
+     * @return количество различных имен в словаре, включая имена, еще не удаленные сборщиком мусора
+     */
+    public static int internedNames() {
+        int count = 0;
+        for (Map<String, WeakReference<String>> names : NAMES) {
+            synchronized (names) {
+                count += names.size();
+            }
+        }
+        return count;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getSalary() {
+        return salary;
+    }
+
+    public Speciality getSpeciality() {
+        return speciality == NO_SPECIALITY ? null : SPECIALITIES[speciality];
+    }
+
+    public SpecialistRecord withName(String name) {
+        return Objects.equals(this.name, name) ? this : new SpecialistRecord(intern(name), salary, speciality);
+    }
+
+    public SpecialistRecord withSalary(int salary) {
+        return this.salary == salary ? this : new SpecialistRecord(name, salary, speciality);
+    }
+
+    public SpecialistRecord withSpeciality(Speciality speciality) {
+        return getSpeciality() == speciality ? this : of(name, salary, speciality);
+    }
+
+    /**
+     * @return изменяемая копия
+     */
+    public Specialist toSpecialist() {
+        return new Specialist(name, salary, getSpeciality());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SpecialistRecord)) return false;
+        SpecialistRecord that = (SpecialistRecord) o;
+        // имена из словаря, поэтому сначала сравниваются ссылки
+        return salary == that.salary && speciality == that.speciality
+                && (name == that.name || Objects.equals(name, that.name));
+    }
+
+    /**
+     * То же значение, что {@link Specialist#hashCode()} с теми же полями
+     */
+    @Override
+    public int hashCode() {
+        int result = 1;
+        result = 31 * result + Objects.hashCode(name);
+        result = 31 * result + salary;
+        result = 31 * result + (speciality == NO_SPECIALITY ? 0 : SPECIALITIES[speciality].hashCode());
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "SpecialistRecord{" +
+                "name='" + name + '\'' +
+                ", salary=" + salary +
+                ", speciality=" + getSpeciality() +
+                '}';
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Map<String, WeakReference<String>>[] names() {
+        Map<String, WeakReference<String>>[] names = new Map[NAME_STRIPES];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = new WeakHashMap<>();
+        }
+        return names;
+    }
+}
@@ -0,0 +1,352 @@
+package streamapi;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Сортировка специалистов для больших списков:
+ * постраничная выборка через ограниченные кучи по частям списка (top-K), параллельная сортировка в памяти
+ * и внешняя сортировка слиянием со сбросом отсортированных частей на диск.
+ * Все варианты устойчивые - при равенстве ключей сохраняется исходный порядок, как в {@link StreamAPI}
+ */
+public class SpecialistSorting {
+    /**
+     * Сортировка по имени, как в {@link StreamAPI#sortedSpecialistsByName(List)}
+     */
+    public static final Comparator<Specialist> BY_NAME = Comparator.comparing(Specialist::getName);
+    /**
+     * Сортировка по убыванию зарплаты без упаковки зарплаты в Integer
+     */
+    public static final Comparator<Specialist> BY_SALARY_DESC = Comparator.comparingInt(Specialist::getSalary).reversed();
+
+    private static final Speciality[] SPECIALITIES = Speciality.values();
+    // размер части параллельной сортировки, меньшие массивы сортируются в одном потоке
+    private static final int PARALLEL_CHUNK = 1 << 13;
+
+    /**
+     * Страница отсортированного списка без полной сортировки, сложность O(n log(offset + limit)).
+     * Список делится на части не меньше {@value #PARALLEL_CHUNK} и не меньше offset + limit элементов, каждая часть
+     * отбирает свои offset + limit лучших через ограниченную кучу в общем ForkJoinPool, затем отобранные соседних
+     * частей сливаются с отсечением до offset + limit
+     *
+     * @param specialists список специалистов
+     * @param comparator  порядок сортировки
+     * @param offset      количество пропускаемых первых элементов
+     * @param limit       размер страницы
+     * @return то же, что sorted(comparator).skip(offset).limit(limit)
+     */
+    public static List<Specialist> page(List<Specialist> specialists, Comparator<? super Specialist> comparator, int offset, int limit) {
+        if (offset < 0 || limit < 0) throw new IllegalArgumentException("offset and limit must not be negative");
+        List<Specialist> source = specialists instanceof RandomAccess ? specialists : new ArrayList<>(specialists);
+        int size = source.size();
+        int capacity = (int) Math.min(size, (long) offset + limit);
+        int chunk = Math.max(PARALLEL_CHUNK, capacity);
+        int chunks = (int) (((long) size + chunk - 1) / chunk);
+        int[] top = chunks <= 1
+                ? top(source, comparator, 0, size, capacity)
+                // reduce упорядоченного стрима сливает только соседние части, левая идет первой
+                : IntStream.range(0, chunks).parallel()
+                .mapToObj(i -> top(source, comparator, i * chunk, (int) Math.min(size, (long) (i + 1) * chunk), capacity))
+                .reduce((left, right) -> mergeTop(source, comparator, left, right, capacity))
+                .orElseThrow();
+        List<Specialist> result = new ArrayList<>(Math.max(0, top.length - offset));
+        for (int i = offset; i < top.length; i++) {
+            result.add(source.get(top[i]));
+        }
+        return result;
+    }
+
+    /**
+     * @return номера не больше capacity лучших элементов source[from, to) от лучшего к худшему,
+     * при равенстве раньше идет элемент с меньшим номером
+     */
+    private static <T> int[] top(List<T> source, Comparator<? super T> comparator, int from, int to, int capacity) {
+        // в корне кучи - худший из отобранных элементов, при равенстве худшим считается элемент с большим номером
+        int[] heap = new int[Math.min(capacity, to - from)];
+        int heapSize = 0;
+        for (int i = from; i < to && heap.length > 0; i++) {
+            if (heapSize < heap.length) {
+                heap[heapSize] = i;
+                siftUp(source, comparator, heap, heapSize++);
+            } else if (comparator.compare(source.get(i), source.get(heap[0])) < 0) {
+                heap[0] = i;
+                siftDown(source, comparator, heap, heapSize);
+            }
+        }
+        int[] sorted = new int[heapSize];
+        while (heapSize > 0) {
+            sorted[--heapSize] = heap[0];
+            heap[0] = heap[heapSize];
+            siftDown(source, comparator, heap, heapSize);
+        }
+        return sorted;
+    }
+
+    /**
+     * Слияние отобранных двух соседних частей, left - из части с меньшими номерами и при равенстве идет первой
+     *
+     * @return не больше capacity лучших номеров от лучшего к худшему
+     */
+    private static <T> int[] mergeTop(List<T> source, Comparator<? super T> comparator, int[] left, int[] right, int capacity) {
+        int[] merged = new int[Math.min(capacity, left.length + right.length)];
+        int l = 0;
+        int r = 0;
+        for (int i = 0; i < merged.length; i++) {
+            if (r == right.length || (l < left.length && comparator.compare(source.get(right[r]), source.get(left[l])) >= 0)) {
+                merged[i] = left[l++];
+            } else {
+                merged[i] = right[r++];
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * @return страница списка, отсортированного по имени
+     */
+    public static List<Specialist> pageByName(List<Specialist> specialists, int offset, int limit) {
+        return page(specialists, BY_NAME, offset, limit);
+    }
+
+    /**
+     * @return страница списка, отсортированного по убыванию зарплаты
+     */
+    public static List<Specialist> pageBySalaryDesc(List<Specialist> specialists, int offset, int limit) {
+        return page(specialists, BY_SALARY_DESC, offset, limit);
+    }
+
+    /**
+     * Параллельная устойчивая сортировка в памяти, см. {@link #parallelSort(Object[], int, int, Comparator)}
+     *
+     * @param specialists список специалистов
+     * @param comparator  порядок сортировки
+     * @return новый отсортированный список
+     */
+    public static List<Specialist> parallelSort(List<Specialist> specialists, Comparator<? super Specialist> comparator) {
+        Specialist[] array = specialists.toArray(new Specialist[0]);
+        parallelSort(array, 0, array.length, comparator);
+        return new ArrayList<>(Arrays.asList(array));
+    }
+
+    /**
+     * Параллельный стрим собирается в массив и сортируется так же, вместо sorted(), которое в параллельном стриме
+     * сортирует через {@link Arrays#parallelSort(Object[], Comparator)}
+     */
+    static List<Specialist> parallelSort(Stream<Specialist> stream, Comparator<? super Specialist> comparator) {
+        Specialist[] array = stream.toArray(Specialist[]::new);
+        parallelSort(array, 0, array.length, comparator);
+        return new ArrayList<>(Arrays.asList(array));
+    }
+
+    /**
+     * Части по {@value #PARALLEL_CHUNK} элементов сортируются {@link Arrays#sort(Object[], int, int, Comparator)}
+     * в общем ForkJoinPool, затем соседние части сливаются попарно, каждый круг слияний тоже параллельно.
+     * {@link Arrays#parallelSort(Object[], Comparator)} не используется: в JDK 17 на массивах от сотен тысяч
+     * элементов он переставляет часть равных элементов
+     */
+    static <T> void parallelSort(T[] array, int from, int to, Comparator<? super T> comparator) {
+        int length = to - from;
+        if (length <= PARALLEL_CHUNK) {
+            Arrays.sort(array, from, to, comparator);
+            return;
+        }
+        T[] source = Arrays.copyOfRange(array, from, to);
+        T[] target = source.clone();
+        int chunks = (length + PARALLEL_CHUNK - 1) / PARALLEL_CHUNK;
+        IntStream.range(0, chunks).parallel().forEach(chunk ->
+                Arrays.sort(source, chunk * PARALLEL_CHUNK, Math.min(length, (chunk + 1) * PARALLEL_CHUNK), comparator));
+        T[] sorted = source;
+        // ширина в long: на массивах больше 2^30 элементов удвоение переполнило бы int
+        for (long width = PARALLEL_CHUNK; width < length; width *= 2) {
+            T[] in = sorted;
+            T[] out = sorted == source ? target : source;
+            long run = width;
+            IntStream.range(0, (int) ((length + 2 * run - 1) / (2 * run))).parallel().forEach(pair -> {
+                long low = pair * 2 * run;
+                merge(in, out, (int) low, (int) Math.min(length, low + run), (int) Math.min(length, low + 2 * run), comparator);
+            });
+            sorted = out;
+        }
+        System.arraycopy(sorted, 0, array, from, length);
+    }
+
+    /**
+     * Слияние in[low, middle) и in[middle, high) в out[low, high), при равенстве раньше идет элемент левой части
+     */
+    private static <T> void merge(T[] in, T[] out, int low, int middle, int high, Comparator<? super T> comparator) {
+        int left = low;
+        int right = middle;
+        for (int i = low; i < high; i++) {
+            if (right == high || (left < middle && comparator.compare(in[right], in[left]) >= 0)) {
+                out[i] = in[left++];
+            } else {
+                out[i] = in[right++];
+            }
+        }
+    }
+
+    /**
+     * Внешняя сортировка слиянием: источник читается частями по runSize элементов,
+     * каждая часть сортируется в памяти и записывается во временный файл,
+     * затем части сливаются и результат по одному элементу передается получателю.
+     * В памяти одновременно находится не больше runSize специалистов и по одному специалисту из каждой части.
+     * Получатель всегда получает новые объекты с теми же значениями полей, а не специалистов из источника,
+     * в том числе когда источник поместился в одну часть и диск не понадобился
+     *
+     * @param source        источник специалистов
+     * @param comparator    порядок сортировки
+     * @param runSize       количество специалистов, сортируемых в памяти
+     * @param tempDirectory каталог для временных файлов, файлы удаляются после сортировки
+     * @param sink          получатель отсортированных специалистов
+     */
+    public static void externalSort(Iterator<? extends Specialist> source, Comparator<? super Specialist> comparator,
+                                    int runSize, Path tempDirectory, Consumer<? super Specialist> sink) throws IOException {
+        if (runSize <= 0) throw new IllegalArgumentException("runSize must be positive: " + runSize);
+        List<Path> runs = new ArrayList<>();
+        try {
+            Specialist[] buffer = new Specialist[runSize];
+            while (source.hasNext()) {
+                int count = 0;
+                while (count < runSize && source.hasNext()) {
+                    buffer[count++] = source.next();
+                }
+                parallelSort(buffer, 0, count, comparator);
+                if (runs.isEmpty() && !source.hasNext()) {
+                    // все поместилось в одну часть - диск не нужен
+                    for (int i = 0; i < count; i++) {
+                        Specialist specialist = buffer[i];
+                        sink.accept(new Specialist(specialist.getName(), specialist.getSalary(), specialist.getSpeciality()));
+                    }
+                    return;
+                }
+                writeRun(buffer, count, tempDirectory, runs);
+                Arrays.fill(buffer, 0, count, null);
+            }
+            mergeRuns(runs, comparator, sink);
+        } finally {
+            for (Path run : runs) {
+                Files.deleteIfExists(run);
+            }
+        }
+    }
+
+    /**
+     * Файл части добавляется в runs сразу после создания, чтобы externalSort удалил его и при ошибке записи
+     */
+    private static void writeRun(Specialist[] buffer, int count, Path tempDirectory, List<Path> runs) throws IOException {
+        Path run = Files.createTempFile(tempDirectory, "specialists-run-", ".bin");
+        runs.add(run);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), 1 << 16))) {
+            out.writeInt(count);
+            for (int i = 0; i < count; i++) {
+                Specialist specialist = buffer[i];
+                // длина имени в байтах UTF-8 и байты, -1 - null; writeUTF ограничен 65535 байтами
+                if (specialist.getName() == null) {
+                    out.writeInt(-1);
+                } else {
+                    byte[] name = specialist.getName().getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(name.length);
+                    out.write(name);
+                }
+                out.writeInt(specialist.getSalary());
+                out.writeByte(specialist.getSpeciality() == null ? -1 : specialist.getSpeciality().ordinal());
+            }
+        }
+    }
+
+    private static void mergeRuns(List<Path> runs, Comparator<? super Specialist> comparator,
+                                  Consumer<? super Specialist> sink) throws IOException {
+        // при равенстве раньше идет элемент из более ранней части, это сохраняет устойчивость сортировки
+        PriorityQueue<RunReader> queue = new PriorityQueue<>(runs.size(),
+                (a, b) -> {
+                    int result = comparator.compare(a.head, b.head);
+                    return result != 0 ? result : Integer.compare(a.index, b.index);
+                });
+        List<RunReader> readers = new ArrayList<>();
+        try {
+            for (int i = 0; i < runs.size(); i++) {
+                RunReader reader = new RunReader(runs.get(i), i);
+                readers.add(reader);
+                if (reader.advance()) queue.add(reader);
+            }
+            while (!queue.isEmpty()) {
+                RunReader reader = queue.poll();
+                sink.accept(reader.head);
+                if (reader.advance()) queue.add(reader);
+            }
+        } finally {
+            for (RunReader reader : readers) {
+                reader.in.close();
+            }
+        }
+    }
+
+    private static <T> void siftUp(List<T> source, Comparator<? super T> comparator, int[] heap, int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!worse(source, comparator, heap[index], heap[parent])) break;
+            swap(heap, index, parent);
+            index = parent;
+        }
+    }
+
+    private static <T> void siftDown(List<T> source, Comparator<? super T> comparator, int[] heap, int size) {
+        int index = 0;
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) break;
+            int right = left + 1;
+            int child = right < size && worse(source, comparator, heap[right], heap[left]) ? right : left;
+            if (!worse(source, comparator, heap[child], heap[index])) break;
+            swap(heap, index, child);
+            index = child;
+        }
+    }
+
+    private static <T> boolean worse(List<T> source, Comparator<? super T> comparator, int a, int b) {
+        int result = comparator.compare(source.get(a), source.get(b));
+        return result > 0 || (result == 0 && a > b);
+    }
+
+    private static void swap(int[] heap, int a, int b) {
+        int tmp = heap[a];
+        heap[a] = heap[b];
+        heap[b] = tmp;
+    }
+
+    private static class RunReader {
+        final DataInputStream in;
+        final int index;
+        int remaining;
+        Specialist head;
+
+        RunReader(Path run, int index) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), 1 << 16));
+            this.index = index;
+            this.remaining = -1;
+        }
+
+        boolean advance() throws IOException {
+            if (remaining < 0) remaining = in.readInt();
+            if (remaining == 0) return false;
+            remaining--;
+            int length = in.readInt();
+            String name = null;
+            if (length >= 0) {
+                byte[] bytes = new byte[length];
+                in.readFully(bytes);
+                name = new String(bytes, StandardCharsets.UTF_8);
+            }
+            int salary = in.readInt();
+            byte speciality = in.readByte();
+            head = new Specialist(name, salary, speciality < 0 ? null : SPECIALITIES[speciality]);
+            return true;
+        }
+    }
+}
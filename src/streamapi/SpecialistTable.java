@@ -0,0 +1,173 @@
+package streamapi;
+
+import java.util.*;
+
+/**
+ * Колоночное (struct-of-arrays) представление списка специалистов:
+ * зарплаты хранятся в массиве int[], специальности - в массиве byte[] (ordinal),
+ * имена - словарным кодированием (номер имени в словаре уникальных имен).
+ * Запросы выполняются последовательным проходом по примитивным массивам
+ * и возвращают те же результаты, что и соответствующие методы {@link StreamAPI}
+ */
+public class SpecialistTable {
+    private static final Speciality[] SPECIALITIES = Speciality.values();
+
+    private final int size;
+    private final int[] salaries;
+    private final byte[] specialities;
+    private final int[] nameIds;
+    private final String[] names;
+
+    private SpecialistTable(int size, int[] salaries, byte[] specialities, int[] nameIds, String[] names) {
+        this.size = size;
+        this.salaries = salaries;
+        this.specialities = specialities;
+        this.nameIds = nameIds;
+        this.names = names;
+    }
+
+    /**
+     * Построение таблицы по списку специалистов, порядок строк совпадает с порядком в списке
+     *
+     * @param specialists список специалистов
+     * @return колоночная таблица специалистов
+     */
+    public static SpecialistTable of(List<Specialist> specialists) {
+        int size = specialists.size();
+        int[] salaries = new int[size];
+        byte[] specialities = new byte[size];
+        int[] nameIds = new int[size];
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        int row = 0;
+        for (Specialist specialist : specialists) {
+            salaries[row] = specialist.getSalary();
+            specialities[row] = (byte) Objects.requireNonNull(specialist.getSpeciality(), "speciality").ordinal();
+            Integer nameId = dictionary.get(specialist.getName());
+            if (nameId == null) {
+                nameId = names.size();
+                dictionary.put(specialist.getName(), nameId);
+                names.add(specialist.getName());
+            }
+            nameIds[row] = nameId;
+            row++;
+        }
+        return new SpecialistTable(size, salaries, specialities, nameIds, names.toArray(new String[0]));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getSalary(int row) {
+        Objects.checkIndex(row, size);
+        return salaries[row];
+    }
+
+    public Speciality getSpeciality(int row) {
+        Objects.checkIndex(row, size);
+        return SPECIALITIES[specialities[row] & 0xFF];
+    }
+
+    public String getName(int row) {
+        Objects.checkIndex(row, size);
+        return names[nameIds[row]];
+    }
+
+    /**
+     * @param row номер строки
+     * @return новый объект специалиста, собранный из колонок таблицы
+     */
+    public Specialist getSpecialist(int row) {
+        Objects.checkIndex(row, size);
+        return toSpecialist(row);
+    }
+
+    /**
+     * @return список специалистов, собранный из всех строк таблицы
+     */
+    public List<Specialist> toList() {
+        List<Specialist> result = new ArrayList<>(size);
+        for (int row = 0; row < size; row++) {
+            result.add(toSpecialist(row));
+        }
+        return result;
+    }
+
+    /**
+     * Аналог {@link StreamAPI#filterSpecialistsBySpeciality(List, Speciality)}, сравнивается только колонка специальностей
+     *
+     * @param speciality специальность по которой происходит фильтр
+     * @return список специалистов с указанной специальностью
+     */
+    public List<Specialist> filterSpecialistsBySpeciality(Speciality speciality) {
+        List<Specialist> result = new ArrayList<>();
+        if (speciality == null) return result;
+        byte ordinal = (byte) speciality.ordinal();
+        for (int row = 0; row < size; row++) {
+            if (specialities[row] == ordinal) {
+                result.add(toSpecialist(row));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Аналог {@link StreamAPI#countSpecialistWithSalaryOverMill(List)}, проход только по колонке зарплат
+     *
+     * @return количество специалистов с ЗП более 1 млн
+     */
+    public long countSpecialistWithSalaryOverMill() {
+        long count = 0;
+        for (int row = 0; row < size; row++) {
+            if (salaries[row] >= 1000000) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Аналог {@link StreamAPI#getIntSummaryStatistics(List)}, проход только по колонке зарплат
+     *
+     * @return объект который содержит статистическую информацию о зарплатах
+     */
+    public IntSummaryStatistics getIntSummaryStatistics() {
+        if (size == 0) return new IntSummaryStatistics();
+        long sum = 0;
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int row = 0; row < size; row++) {
+            int salary = salaries[row];
+            sum += salary;
+            min = Math.min(min, salary);
+            max = Math.max(max, salary);
+        }
+        return new IntSummaryStatistics(size, min, max, sum);
+    }
+
+    /**
+     * Аналог {@link StreamAPI#groupBySpeciality(List)}, сначала считаются размеры групп по колонке специальностей,
+     * затем группы заполняются в порядке строк таблицы
+     *
+     * @return мапа специалистов где ключом является специальность, а значением список специалистов по этой специальности
+     */
+    public Map<Speciality, List<Specialist>> groupBySpeciality() {
+        int[] counts = new int[SPECIALITIES.length];
+        for (int row = 0; row < size; row++) {
+            counts[specialities[row] & 0xFF]++;
+        }
+        Map<Speciality, List<Specialist>> result = new EnumMap<>(Speciality.class);
+        for (int ordinal = 0; ordinal < counts.length; ordinal++) {
+            if (counts[ordinal] > 0) {
+                result.put(SPECIALITIES[ordinal], new ArrayList<>(counts[ordinal]));
+            }
+        }
+        for (int row = 0; row < size; row++) {
+            result.get(SPECIALITIES[specialities[row] & 0xFF]).add(toSpecialist(row));
+        }
+        return result;
+    }
+
+    private Specialist toSpecialist(int row) {
+        return new Specialist(names[nameIds[row]], salaries[row], SPECIALITIES[specialities[row] & 0xFF]);
+    }
+}
@@ -9,6 +9,8 @@ import java.util.stream.Stream;
  * Источник данных - из чего формируется стрим, пустой стрим, List, Map, массив, указанные элементы
  * Промежуточная операция - может быть сколько угодно, производят некоторые действия над объектами стрима
  * Терминальная операция - может быть только один, запускает работу стрима и завершает ее
+ * Режим выполнения конвейеров (последовательно или параллельно) выбирает {@link ExecutionPlanner} по размеру
+ * и устройству источника, операции записывают метрики в {@link StreamAPIMetrics}, если их сбор включен
  */
 public class StreamAPI {
 
@@ -23,9 +25,10 @@ public class StreamAPI {
      * @return список специалистов после выполнения стрима
      */
     public static List<Specialist> filterSpecialistsBySpeciality(List<Specialist> specialists, Speciality speciality) {
-        return specialists.stream()
-                .filter(specialist -> specialist.getSpeciality().equals(speciality))
-                .collect(Collectors.toList());
+        return ExecutionPlanner.execute(StreamOperation.FILTER_SPECIALISTS_BY_SPECIALITY, specialists, stream -> StreamAPIMetrics.stage(StreamOperation.FILTER_SPECIALISTS_BY_SPECIALITY, stream
+                .filter(specialist -> specialist.getSpeciality().equals(speciality)))
+                .collect(Collectors.toList()),
+                List::size);
     }
 
     /**
@@ -36,10 +39,14 @@ public class StreamAPI {
      * @return список специалистов после выполнения стрима
      */
     public static List<Specialist> sortedSpecialistsByName(List<Specialist> specialists) {
-        return specialists.stream()
-                .sorted(Comparator.comparing(specialist -> specialist.getName()))
+        return ExecutionPlanner.execute(StreamOperation.SORTED_SPECIALISTS_BY_NAME, specialists, stream -> stream.isParallel()
+                // параллельная сортировка возвращает список, поэтому элементы считаются на входе в нее
+                ? SpecialistSorting.parallelSort(StreamAPIMetrics.stage(StreamOperation.SORTED_SPECIALISTS_BY_NAME, stream), SpecialistSorting.BY_NAME)
+                : StreamAPIMetrics.stage(StreamOperation.SORTED_SPECIALISTS_BY_NAME, stream
+                .sorted(SpecialistSorting.BY_NAME))
 //                .sorted(Comparator.comparing(Specialist::getName))
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()),
+                List::size);
     }
 
     /**
@@ -50,22 +57,31 @@ public class StreamAPI {
      * @return список специалистов после выполнения стрима
      */
     public static List<Specialist> sortedSpecialistsBySalaryDesc(List<Specialist> specialists) {
-        return specialists.stream()
-                .sorted(Comparator.comparing(Specialist::getSalary).reversed())
-                .collect(Collectors.toList());
+        return ExecutionPlanner.execute(StreamOperation.SORTED_SPECIALISTS_BY_SALARY_DESC, specialists, stream -> stream.isParallel()
+                // параллельная сортировка возвращает список, поэтому элементы считаются на входе в нее
+                ? SpecialistSorting.parallelSort(StreamAPIMetrics.stage(StreamOperation.SORTED_SPECIALISTS_BY_SALARY_DESC, stream), SpecialistSorting.BY_SALARY_DESC)
+                : StreamAPIMetrics.stage(StreamOperation.SORTED_SPECIALISTS_BY_SALARY_DESC, stream
+                .sorted(SpecialistSorting.BY_SALARY_DESC))
+                .collect(Collectors.toList()),
+                List::size);
     }
 
     /**
-     * concat - промежуточная операция, объединяет два потока
+     * concat - промежуточная операция, объединяет два потока,
+     * источники объединяются в {@link RosterSpliterators#concat(List, List)}, который делится на равные части
      *
      * @param specialists1 список специалистов 1
      * @param specialists2 список специалистов 2
      * @return список специалистов после объединения
      */
     public static List<Specialist> concatCombineSpecialists(List<Specialist> specialists1, List<Specialist> specialists2) {
-        Stream<Specialist> specialists1Stream = specialists1.stream();
-        Stream<Specialist> specialists2Stream = specialists2.stream();
-        return Stream.concat(specialists1Stream, specialists2Stream).collect(Collectors.toList());
+//        Stream<Specialist> specialists1Stream = specialists1.stream();
+//        Stream<Specialist> specialists2Stream = specialists2.stream();
+//        Stream.concat(specialists1Stream, specialists2Stream) в параллельном стриме делится только по границе списков
+        return ExecutionPlanner.execute(StreamOperation.CONCAT_COMBINE_SPECIALISTS,
+                RosterSpliterators.concat(specialists1, specialists2),
+                stream -> stream.collect(Collectors.toList()),
+                List::size);
 
     }
 
@@ -77,9 +93,10 @@ public class StreamAPI {
      * @return список специалистов после отбора уникальных
      */
     public static List<Specialist> distinctGetUniqueSpecialists(List<Specialist> specialists) {
-        return specialists.stream()
-                .distinct()
-                .collect(Collectors.toList());
+        return ExecutionPlanner.execute(StreamOperation.DISTINCT_GET_UNIQUE_SPECIALISTS, specialists, stream -> StreamAPIMetrics.stage(StreamOperation.DISTINCT_GET_UNIQUE_SPECIALISTS, stream
+                .distinct())
+                .collect(Collectors.toList()),
+                List::size);
     }
 
     /**
@@ -89,21 +106,24 @@ public class StreamAPI {
      * @return список специалистов после пропуска
      */
     public static List<Specialist> dropWhileTest(List<Specialist> specialists) {
-        return specialists.stream()
-                .dropWhile(s -> s.getSalary() >= 1000000)
-                .collect(Collectors.toList());
+        return ExecutionPlanner.execute(StreamOperation.DROP_WHILE_TEST, specialists, stream -> StreamAPIMetrics.stage(StreamOperation.DROP_WHILE_TEST, stream
+                .dropWhile(s -> s.getSalary() >= 1000000))
+                .collect(Collectors.toList()),
+                List::size);
     }
 
     /**
-     * limit - промежуточная операция, оставляет в потоке определенное количество элементов
+     * limit - промежуточная операция, оставляет в потоке определенное количество элементов,
+     * выполняется на источнике за O(1) через {@link RosterSpliterators.IndexedSpliterator#limit(long)}
      *
      * @param specialists список специалистов
      * @return список специалистов в определенном количестве
      */
     public static List<Specialist> limitElements(List<Specialist> specialists) {
-        return specialists.stream()
-                .limit(2)
-                .collect(Collectors.toList());
+        return ExecutionPlanner.execute(StreamOperation.LIMIT_ELEMENTS, RosterSpliterators.of(specialists).limit(2), stream -> stream
+//                .limit(2)
+                .collect(Collectors.toList()),
+                List::size);
     }
 
     /**
@@ -113,34 +133,39 @@ public class StreamAPI {
      * @return преобразованный список элементов
      */
     public static List<String> mapElements(List<Specialist> specialists) {
-        return specialists.stream()
+        return ExecutionPlanner.execute(StreamOperation.MAP_ELEMENTS, specialists, stream -> StreamAPIMetrics.stage(StreamOperation.MAP_ELEMENTS, stream
 //                .map(Specialist::getName)
-                .map(s -> s.getName())
-                .collect(Collectors.toList());
+                .map(s -> s.getName()))
+                .collect(Collectors.toList()),
+                List::size);
     }
 
     /**
-     * flatMap - промежуточная операция, преобразует элементы из одного типа в другой
+     * flatMap - промежуточная операция, преобразует элементы из одного типа в другой,
+     * списки разворачиваются в {@link RosterSpliterators#flatten(List)}, который делится независимо от границ списков
      *
      * @param listOfListsSpecialists список списков специалистов
      * @return преобразованный список специалистов
      */
     public static List<Specialist> flatMapElements(List<List<Specialist>> listOfListsSpecialists) {
-        return listOfListsSpecialists.stream()
-                .flatMap(List::stream)
-                .collect(Collectors.toList());
+        return ExecutionPlanner.execute(StreamOperation.FLAT_MAP_ELEMENTS, RosterSpliterators.<Specialist>flatten(listOfListsSpecialists), stream -> stream
+//                .flatMap(List::stream) - вложенные стримы не делятся между потоками
+                .collect(Collectors.toList()),
+                List::size);
     }
 
     /**
-     * skip - промежуточная операция, возвращает поток с заданным количеством пропущенных первых элементов
+     * skip - промежуточная операция, возвращает поток с заданным количеством пропущенных первых элементов,
+     * выполняется на источнике за O(1) через {@link RosterSpliterators.IndexedSpliterator#skip(long)}
      *
      * @param specialists список специалистов
      * @return список специалистов с заданным количеством пропущенных первых элементов
      */
     public static List<Specialist> skipElements(List<Specialist> specialists) {
-        return specialists.stream()
-                .skip(3)
-                .collect(Collectors.toList());
+        return ExecutionPlanner.execute(StreamOperation.SKIP_ELEMENTS, RosterSpliterators.of(specialists).skip(3), stream -> stream
+//                .skip(3)
+                .collect(Collectors.toList()),
+                List::size);
     }
 
     /**
@@ -150,22 +175,25 @@ public class StreamAPI {
      * @return список специалистов после отбора
      */
     public static List<Specialist> takeWhileElements(List<Specialist> specialists) {
-        return specialists.stream()
-                .takeWhile(s -> s.getSalary() >= 1000000)
-                .collect(Collectors.toList());
+        return ExecutionPlanner.execute(StreamOperation.TAKE_WHILE_ELEMENTS, specialists, stream -> StreamAPIMetrics.stage(StreamOperation.TAKE_WHILE_ELEMENTS, stream
+                .takeWhile(s -> s.getSalary() >= 1000000))
+                .collect(Collectors.toList()),
+                List::size);
     }
 
     /**
-     * peek - выполнение действий над каждым элементом
+     * peek - выполнение действий над каждым элементом.
+     * Для массового изменения зарплат без изменения специалистов внутри стрима см. {@link SalaryUpdateEngine}
      *
      * @param specialists список специалистов
      * @return список специалистов после выполнения действий над элементами
      */
     // промежуточная
     public static List<Specialist> peekElements(List<Specialist> specialists) {
-        return specialists.stream()
-                .peek(s -> s.setSalary(1000000))
-                .collect(Collectors.toList());
+        return ExecutionPlanner.execute(StreamOperation.PEEK_ELEMENTS, specialists, stream -> StreamAPIMetrics.stage(StreamOperation.PEEK_ELEMENTS, stream
+                .peek(s -> s.setSalary(1000000)))
+                .collect(Collectors.toList()),
+                List::size);
     }
 
     // ТЕРМИНАЛЬНЫЕ ОПЕРАЦИИ
@@ -177,8 +205,11 @@ public class StreamAPI {
      * @param specialists список специалистов
      */
     public static void forEachPrintSpecialists(List<Specialist> specialists) {
+        boolean metrics = StreamAPIMetrics.isEnabled();
+        long start = metrics ? System.nanoTime() : 0;
         Stream.of(specialists)
                 .forEach(specialist -> System.out.println(specialist.toString()));
+        if (metrics) StreamAPIMetrics.record(StreamOperation.FOR_EACH_PRINT_SPECIALISTS, start, 1, 1, false);
     }
 
     /**
@@ -188,8 +219,9 @@ public class StreamAPI {
      * @return специалист после выполнения стрима
      */
     public static Specialist maxFindSpecialistWithMaxSalary(List<Specialist> specialists) {
-        return specialists.stream()
-                .max(Comparator.comparing(specialist -> specialist.getSalary())).orElse(null);
+        return ExecutionPlanner.execute(StreamOperation.MAX_FIND_SPECIALIST_WITH_MAX_SALARY, specialists, stream -> stream
+                .max(Comparator.comparingInt(Specialist::getSalary)).orElse(null),
+                result -> result == null ? 0 : 1);
     }
 
     /**
@@ -199,8 +231,9 @@ public class StreamAPI {
      * @return специалист после выполнения стрима
      */
     public static Specialist minFindSpecialistWithMinSalary(List<Specialist> specialists) {
-        return specialists.stream()
-                .min(Comparator.comparing(specialist -> specialist.getSalary())).orElse(null);
+        return ExecutionPlanner.execute(StreamOperation.MIN_FIND_SPECIALIST_WITH_MIN_SALARY, specialists, stream -> stream
+                .min(Comparator.comparingInt(Specialist::getSalary)).orElse(null),
+                result -> result == null ? 0 : 1);
     }
 
     /**
@@ -210,9 +243,10 @@ public class StreamAPI {
      * @return количество специалистов с ЗП более 1 млн
      */
     public static long countSpecialistWithSalaryOverMill(List<Specialist> specialists) {
-        return specialists.stream()
-                .filter(s -> s.getSalary() >= 1000000)
-                .count();
+        return ExecutionPlanner.execute(StreamOperation.COUNT_SPECIALIST_WITH_SALARY_OVER_MILL, specialists, stream -> StreamAPIMetrics.stage(StreamOperation.COUNT_SPECIALIST_WITH_SALARY_OVER_MILL, stream
+                .filter(s -> s.getSalary() >= 1000000))
+                .count(),
+                result -> result);
     }
 
     /**
@@ -222,8 +256,9 @@ public class StreamAPI {
      * @return возвращает true, если все элементы потока удовлетворяют условию
      */
     public static boolean allMatchIsAllHaveSalaryOver900k(List<Specialist> specialists) {
-        return specialists.stream()
-                .allMatch(s -> s.getSalary() >= 900000);
+        return ExecutionPlanner.execute(StreamOperation.ALL_MATCH_IS_ALL_HAVE_SALARY_OVER_900K, specialists, stream -> stream
+                .allMatch(s -> s.getSalary() >= 900000),
+                result -> 1);
     }
 
     /**
@@ -233,8 +268,9 @@ public class StreamAPI {
      * @return возвращает true, если хоть один элемент потока удовлетворяют условию в предикате
      */
     public static boolean anyMatchIsTeamHasBusinessAnalyst(List<Specialist> specialists) {
-        return specialists.stream()
-                .anyMatch(s -> s.getSpeciality().equals(Speciality.BUSINESS_ANALYST));
+        return ExecutionPlanner.execute(StreamOperation.ANY_MATCH_IS_TEAM_HAS_BUSINESS_ANALYST, specialists, stream -> stream
+                .anyMatch(s -> s.getSpeciality().equals(Speciality.BUSINESS_ANALYST)),
+                result -> 1);
     }
 
     /**
@@ -244,8 +280,9 @@ public class StreamAPI {
      * @return первый специалист в списке
      */
     public static Optional<Specialist> findFirstSpecialist(List<Specialist> specialists) {
-        return specialists.stream()
-                .findFirst();
+        return ExecutionPlanner.execute(StreamOperation.FIND_FIRST_SPECIALIST, specialists, stream -> stream
+                .findFirst(),
+                result -> result.isPresent() ? 1 : 0);
     }
 
     /**
@@ -255,8 +292,9 @@ public class StreamAPI {
      * @return любой специалист в списке
      */
     public static Optional<Specialist> findAnySpecialist(List<Specialist> specialists) {
-        return specialists.stream()
-                .findAny();
+        return ExecutionPlanner.execute(StreamOperation.FIND_ANY_SPECIALIST, specialists, stream -> stream
+                .findAny(),
+                result -> result.isPresent() ? 1 : 0);
     }
 
     /**
@@ -266,8 +304,9 @@ public class StreamAPI {
      * @return возвращает true, если все элементы потока НЕ удовлетворяют условию
      */
     public static boolean noneMatchCheck(List<Specialist> specialists) {
-        return specialists.stream()
-                .noneMatch(s -> s.getSalary() > 2000000);
+        return ExecutionPlanner.execute(StreamOperation.NONE_MATCH_CHECK, specialists, stream -> stream
+                .noneMatch(s -> s.getSalary() > 2000000),
+                result -> 1);
     }
 
     /**
@@ -277,21 +316,24 @@ public class StreamAPI {
      * @return массив элементов потока
      */
     public static Object[] toArraySpecialists(List<Specialist> specialists) {
-        return specialists.stream()
-                .filter(s -> s.getSalary() < 1000000)
-                .toArray();
+        return ExecutionPlanner.execute(StreamOperation.TO_ARRAY_SPECIALISTS, specialists, stream -> StreamAPIMetrics.stage(StreamOperation.TO_ARRAY_SPECIALISTS, stream
+                .filter(s -> s.getSalary() < 1000000))
+                .toArray(),
+                result -> result.length);
     }
 
     /**
      * reduce - терминальная операция, сокращение элементов до одного значения
      *
      * @param specialists список специалистов
-     * @return сумма зарплат всех специалистов
+     * @return сумма зарплат всех специалистов, сумма в int может переполниться, см. {@link SalaryAggregations#totalSalary(List)}
      */
     public static Optional<Integer> reduceElemetsToTotalSalary(List<Specialist> specialists) {
-        return specialists.stream()
-                .map(s -> s.getSalary())
-                .reduce((s1, s2) -> s1 + s2);
+        OptionalInt totalSalary = ExecutionPlanner.execute(StreamOperation.REDUCE_ELEMETS_TO_TOTAL_SALARY, specialists, stream -> StreamAPIMetrics.stage(StreamOperation.REDUCE_ELEMETS_TO_TOTAL_SALARY, stream
+                .mapToInt(Specialist::getSalary))
+                .reduce(Integer::sum),
+                result -> result.isPresent() ? 1 : 0);
+        return totalSalary.isPresent() ? Optional.of(totalSalary.getAsInt()) : Optional.empty();
     }
 
     /**
@@ -301,9 +343,15 @@ public class StreamAPI {
      * @param specialists список специалистов
      */
     public static void parallelAndForEachOrderedPrintSpecialists(List<Specialist> specialists) {
+        boolean metrics = StreamAPIMetrics.isEnabled();
+        long start = metrics ? System.nanoTime() : 0;
         specialists.stream()
                 .parallel()
                 .forEachOrdered(System.out::println);
+        if (metrics) {
+            StreamAPIMetrics.record(StreamOperation.PARALLEL_AND_FOR_EACH_ORDERED_PRINT_SPECIALISTS, start,
+                    specialists.size(), specialists.size(), true);
+        }
     }
 
     /**
@@ -313,8 +361,9 @@ public class StreamAPI {
      * @return мапа специалистов где ключом является специальность, а значением список специалистов по этой специальности
      */
     public static Map<Speciality, List<Specialist>> groupBySpeciality(List<Specialist> specialists) {
-        return specialists.stream()
-                .collect(Collectors.groupingBy(Specialist::getSpeciality));
+        return ExecutionPlanner.execute(StreamOperation.GROUP_BY_SPECIALITY, specialists, stream -> stream
+                .collect(Collectors.groupingBy(Specialist::getSpeciality)),
+                Map::size);
     }
 
     /**
@@ -324,8 +373,9 @@ public class StreamAPI {
      * @return мапа специалистов где ключом является выполнение словия, а значением список специалистов по которым выполняется или не выполняется условие
      */
     public static Map<Boolean, List<Specialist>> groupBySalaryOver1MillOrNot(List<Specialist> specialists) {
-        return specialists.stream()
-                .collect(Collectors.partitioningBy(s -> s.getSalary() >= 1000000));
+        return ExecutionPlanner.execute(StreamOperation.GROUP_BY_SALARY_OVER_1_MILL_OR_NOT, specialists, stream -> stream
+                .collect(Collectors.partitioningBy(s -> s.getSalary() >= 1000000)),
+                Map::size);
     }
 
     /**
@@ -336,8 +386,9 @@ public class StreamAPI {
      * @return объект который содержит статистическую информацию о числах в потоке
      */
     public static IntSummaryStatistics getIntSummaryStatistics(List<Specialist> specialists) {
-        return specialists.stream()
-                .mapToInt(Specialist::getSalary)
-                .summaryStatistics();
+        return ExecutionPlanner.execute(StreamOperation.GET_INT_SUMMARY_STATISTICS, specialists, stream -> StreamAPIMetrics.stage(StreamOperation.GET_INT_SUMMARY_STATISTICS, stream
+                .mapToInt(Specialist::getSalary))
+                .summaryStatistics(),
+                result -> 1);
     }
 }
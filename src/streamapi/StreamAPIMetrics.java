@@ -0,0 +1,447 @@
+package streamapi;
+
+import com.sun.net.httpserver.HttpServer;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Метрики операций {@link StreamAPI}: количество выполнений в последовательном и параллельном режиме,
+ * количество элементов на входе конвейера, после его промежуточной операции ({@link StreamOperation#getStage()})
+ * и на выходе, гистограмма времени выполнения.
+ * <p>
+ * Сбор выключен по умолчанию и включается свойством -Dstreamapi.metrics=true или {@link #setEnabled(boolean)}.
+ * В выключенном состоянии операция платит одно чтение volatile-поля при запуске и одно при сборке конвейера
+ * ({@link #stage(StreamOperation, Stream)} возвращает стрим без изменений), сравнение со сбором и без -
+ * StreamAPIMetricsBenchmark в исходниках jmh. Подсчет элементов стадии - {@link LongAdder} в peek, который
+ * вставляется в конвейер только при включенном сборе. Запись метрики не выделяет память:
+ * счетчики - {@link LongAdder}, гистограмма - массив {@link AtomicLongArray} с логарифмическими корзинами
+ * по 16 корзин на степень двойки (относительная погрешность квантилей не больше 1/16), как в HdrHistogram.
+ * <p>
+ * Метрики публикуются через JMX ({@link #registerMBeans()}) и в текстовом формате Prometheus
+ * ({@link #scrape()}, {@link #startHttpEndpoint(int)})
+ */
+public final class StreamAPIMetrics {
+    private static final String OBJECT_NAME = "streamapi:type=StreamAPIMetrics";
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final StreamOperation[] OPERATIONS = StreamOperation.values();
+    private static final OperationMetrics[] METRICS = new OperationMetrics[OPERATIONS.length];
+
+    private static volatile boolean enabled = Boolean.getBoolean("streamapi.metrics");
+    private static boolean registered;
+
+    static {
+        for (StreamOperation operation : OPERATIONS) {
+            METRICS[operation.ordinal()] = new OperationMetrics(operation);
+        }
+    }
+
+    private StreamAPIMetrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        StreamAPIMetrics.enabled = enabled;
+    }
+
+    /**
+     * Подсчет элементов, прошедших промежуточную операцию конвейера
+     *
+     * @param operation операция, у которой есть {@link StreamOperation#getStage()}
+     * @param stream    стрим после промежуточной операции
+     * @return тот же стрим, если сбор выключен, иначе стрим со счетчиком элементов
+     */
+    public static <T> Stream<T> stage(StreamOperation operation, Stream<T> stream) {
+        if (!enabled) return stream;
+        LongAdder counter = METRICS[operation.ordinal()].stageElements;
+        return stream.peek(element -> counter.increment());
+    }
+
+    /**
+     * То же, что {@link #stage(StreamOperation, Stream)}, для примитивного стрима
+     */
+    public static IntStream stage(StreamOperation operation, IntStream stream) {
+        if (!enabled) return stream;
+        LongAdder counter = METRICS[operation.ordinal()].stageElements;
+        return stream.peek(element -> counter.increment());
+    }
+
+    /**
+     * Окончание замера операции. Вызывается, только если при запуске операции {@link #isEnabled()} вернул true:
+     * у {@link System#nanoTime()} нет значения, которое можно было бы считать признаком выключенного сбора
+     *
+     * @param operation      операция
+     * @param start          {@link System#nanoTime()} при запуске операции
+     * @param inputElements  количество элементов источника
+     * @param outputElements размер результата: для коллекций и массивов - количество элементов,
+     *                       для count - посчитанное значение, для остальных операций 1, если результат есть, иначе 0
+     * @param parallel       выполнялась ли операция на параллельном стриме
+     */
+    public static void record(StreamOperation operation, long start, long inputElements, long outputElements, boolean parallel) {
+        METRICS[operation.ordinal()].record(System.nanoTime() - start, inputElements, outputElements, parallel);
+    }
+
+    /**
+     * @return живые метрики операции, те же объекты публикуются как MBean
+     */
+    public static OperationMetricsMXBean metrics(StreamOperation operation) {
+        return METRICS[operation.ordinal()];
+    }
+
+    /**
+     * Обнуление всех метрик, конкурентные записи во время сброса могут частично сохраниться
+     */
+    public static void reset() {
+        for (OperationMetrics metrics : METRICS) {
+            metrics.reset();
+        }
+    }
+
+    /**
+     * Регистрация MBean в платформенном MBeanServer: streamapi:type=StreamAPIMetrics для управления
+     * и streamapi:type=StreamAPIMetrics,operation=&lt;имя метода&gt; для каждой операции.
+     * Повторный вызов ничего не делает
+     */
+    public static synchronized void registerMBeans() {
+        if (registered) return;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(new Control(), new ObjectName(OBJECT_NAME));
+            for (OperationMetrics metrics : METRICS) {
+                server.registerMBean(metrics, new ObjectName(OBJECT_NAME + ",operation=" + metrics.getOperation()));
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("cannot register StreamAPI metrics MBeans", e);
+        }
+        registered = true;
+    }
+
+    /**
+     * Запуск HTTP-сервера на localhost, который отдает {@link #scrape()} по пути /metrics
+     *
+     * @param port порт, 0 - любой свободный
+     * @return запущенный сервер, останавливается вызывающим
+     */
+    public static HttpServer startHttpEndpoint(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", exchange -> {
+            try (exchange) {
+                if (!exchange.getRequestMethod().equals("GET")) {
+                    exchange.sendResponseHeaders(405, -1);
+                    return;
+                }
+                byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        });
+        server.start();
+        return server;
+    }
+
+    /**
+     * @return метрики всех операций в текстовом формате Prometheus, время в секундах
+     */
+    public static String scrape() {
+        StringBuilder out = new StringBuilder();
+        out.append("# HELP streamapi_metrics_enabled Whether StreamAPI metrics are being recorded\n");
+        out.append("# TYPE streamapi_metrics_enabled gauge\n");
+        out.append("streamapi_metrics_enabled ").append(enabled ? 1 : 0).append('\n');
+        out.append("# HELP streamapi_operations_total StreamAPI operation executions by stream mode\n");
+        out.append("# TYPE streamapi_operations_total counter\n");
+        for (OperationMetrics metrics : METRICS) {
+            sample(out, "streamapi_operations_total", metrics, "mode", "sequential", metrics.getSequentialCount());
+            sample(out, "streamapi_operations_total", metrics, "mode", "parallel", metrics.getParallelCount());
+        }
+        out.append("# HELP streamapi_elements_total Elements entering the pipeline source, passing its intermediate stage and leaving as the result\n");
+        out.append("# TYPE streamapi_elements_total counter\n");
+        for (OperationMetrics metrics : METRICS) {
+            sample(out, "streamapi_elements_total", metrics, "stage", "source", metrics.getInputElements());
+            if (metrics.getStage() != null) {
+                sample(out, "streamapi_elements_total", metrics, "stage", metrics.getStage(), metrics.getStageElements());
+            }
+            sample(out, "streamapi_elements_total", metrics, "stage", "result", metrics.getOutputElements());
+        }
+        out.append("# HELP streamapi_latency_seconds StreamAPI operation latency\n");
+        out.append("# TYPE streamapi_latency_seconds summary\n");
+        for (OperationMetrics metrics : METRICS) {
+            for (double quantile : QUANTILES) {
+                sample(out, "streamapi_latency_seconds", metrics, "quantile", String.valueOf(quantile),
+                        seconds(metrics.getPercentileNanos(quantile * 100)));
+            }
+            sample(out, "streamapi_latency_seconds_sum", metrics, null, null, seconds(metrics.getTotalNanos()));
+            sample(out, "streamapi_latency_seconds_count", metrics, null, null, metrics.getCount());
+        }
+        out.append("# HELP streamapi_latency_max_seconds Maximum StreamAPI operation latency\n");
+        out.append("# TYPE streamapi_latency_max_seconds gauge\n");
+        for (OperationMetrics metrics : METRICS) {
+            sample(out, "streamapi_latency_max_seconds", metrics, null, null, seconds(metrics.getMaxNanos()));
+        }
+        return out.toString();
+    }
+
+    private static void sample(StringBuilder out, String name, OperationMetrics metrics, String label, String value, Object sample) {
+        out.append(name).append("{operation=\"").append(metrics.getOperation()).append('"');
+        if (label != null) out.append(',').append(label).append("=\"").append(value).append('"');
+        out.append("} ").append(sample).append('\n');
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+
+    /**
+     * Номер корзины: значения меньше 16 хранятся точно, далее на каждую степень двойки 16 корзин равной ширины
+     */
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) return (int) Math.max(0, value);
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * @return наибольшее значение, попадающее в корзину
+     */
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long lowerBound = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+        return lowerBound + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /**
+     * Управление сбором метрик через JMX
+     */
+    public interface StreamAPIMetricsMXBean {
+        boolean isEnabled();
+
+        void setEnabled(boolean enabled);
+
+        void reset();
+    }
+
+    /**
+     * Метрики одной операции, время в наносекундах
+     */
+    public interface OperationMetricsMXBean {
+        String getOperation();
+
+        long getCount();
+
+        long getSequentialCount();
+
+        long getParallelCount();
+
+        long getInputElements();
+
+        /**
+         * @return имя промежуточной операции, после которой считаются элементы, null, если ее нет
+         */
+        String getStage();
+
+        /**
+         * @return количество элементов, прошедших промежуточную операцию
+         */
+        long getStageElements();
+
+        long getOutputElements();
+
+        long getTotalNanos();
+
+        double getMeanNanos();
+
+        long getMaxNanos();
+
+        long getP50Nanos();
+
+        long getP90Nanos();
+
+        long getP99Nanos();
+
+        long getP999Nanos();
+
+        /**
+         * @param percentile процентиль от 0 до 100
+         * @return верхняя граница корзины гистограммы, в которую попадает процентиль, 0, если замеров нет
+         */
+        long getPercentileNanos(double percentile);
+    }
+
+    private static class Control implements StreamAPIMetricsMXBean {
+        @Override
+        public boolean isEnabled() {
+            return StreamAPIMetrics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean enabled) {
+            StreamAPIMetrics.setEnabled(enabled);
+        }
+
+        @Override
+        public void reset() {
+            StreamAPIMetrics.reset();
+        }
+    }
+
+    private static class OperationMetrics implements OperationMetricsMXBean {
+        private final StreamOperation operation;
+        private final LongAdder sequential = new LongAdder();
+        private final LongAdder parallel = new LongAdder();
+        private final LongAdder inputElements = new LongAdder();
+        private final LongAdder stageElements = new LongAdder();
+        private final LongAdder outputElements = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+        OperationMetrics(StreamOperation operation) {
+            this.operation = operation;
+        }
+
+        void record(long nanos, long input, long output, boolean parallelMode) {
+            (parallelMode ? parallel : sequential).increment();
+            inputElements.add(input);
+            outputElements.add(output);
+            totalNanos.add(nanos);
+            histogram.incrementAndGet(bucketIndex(nanos));
+            long max = maxNanos.get();
+            while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+                max = maxNanos.get();
+            }
+        }
+
+        void reset() {
+            sequential.reset();
+            parallel.reset();
+            inputElements.reset();
+            stageElements.reset();
+            outputElements.reset();
+            totalNanos.reset();
+            maxNanos.set(0);
+            for (int i = 0; i < BUCKETS; i++) {
+                histogram.set(i, 0);
+            }
+        }
+
+        @Override
+        public String getOperation() {
+            return operation.getMethodName();
+        }
+
+        @Override
+        public long getCount() {
+            return sequential.sum() + parallel.sum();
+        }
+
+        @Override
+        public long getSequentialCount() {
+            return sequential.sum();
+        }
+
+        @Override
+        public long getParallelCount() {
+            return parallel.sum();
+        }
+
+        @Override
+        public long getInputElements() {
+            return inputElements.sum();
+        }
+
+        @Override
+        public String getStage() {
+            return operation.getStage();
+        }
+
+        @Override
+        public long getStageElements() {
+            return stageElements.sum();
+        }
+
+        @Override
+        public long getOutputElements() {
+            return outputElements.sum();
+        }
+
+        @Override
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        @Override
+        public double getMeanNanos() {
+            long count = getCount();
+            return count == 0 ? 0 : (double) getTotalNanos() / count;
+        }
+
+        @Override
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        @Override
+        public long getP50Nanos() {
+            return getPercentileNanos(50);
+        }
+
+        @Override
+        public long getP90Nanos() {
+            return getPercentileNanos(90);
+        }
+
+        @Override
+        public long getP99Nanos() {
+            return getPercentileNanos(99);
+        }
+
+        @Override
+        public long getP999Nanos() {
+            return getPercentileNanos(99.9);
+        }
+
+        @Override
+        public long getPercentileNanos(double percentile) {
+            if (!(percentile >= 0 && percentile <= 100)) {
+                throw new IllegalArgumentException("percentile must be in [0, 100]: " + percentile);
+            }
+            long[] counts = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = histogram.get(i);
+                total += counts[i];
+            }
+            if (total == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) return Math.min(bucketUpperBound(i), getMaxNanos());
+            }
+            return getMaxNanos();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package streamapi;
+
+/**
+ * Публичные операции {@link StreamAPI}, используются как ключ метрик {@link StreamAPIMetrics}
+ * и оценок стоимости {@link ExecutionPlanner}
+ */
+public enum StreamOperation {
+    FILTER_SPECIALISTS_BY_SPECIALITY("filterSpecialistsBySpeciality", "filter"),
+    SORTED_SPECIALISTS_BY_NAME("sortedSpecialistsByName", "sorted"),
+    SORTED_SPECIALISTS_BY_SALARY_DESC("sortedSpecialistsBySalaryDesc", "sorted"),
+    CONCAT_COMBINE_SPECIALISTS("concatCombineSpecialists"),
+    DISTINCT_GET_UNIQUE_SPECIALISTS("distinctGetUniqueSpecialists", "distinct"),
+    DROP_WHILE_TEST("dropWhileTest", true, "dropWhile"),
+    LIMIT_ELEMENTS("limitElements"),
+    MAP_ELEMENTS("mapElements", "map"),
+    FLAT_MAP_ELEMENTS("flatMapElements"),
+    SKIP_ELEMENTS("skipElements"),
+    TAKE_WHILE_ELEMENTS("takeWhileElements", true, "takeWhile"),
+    PEEK_ELEMENTS("peekElements", true, "peek"),
+    FOR_EACH_PRINT_SPECIALISTS("forEachPrintSpecialists", true),
+    MAX_FIND_SPECIALIST_WITH_MAX_SALARY("maxFindSpecialistWithMaxSalary"),
+    MIN_FIND_SPECIALIST_WITH_MIN_SALARY("minFindSpecialistWithMinSalary"),
+    COUNT_SPECIALIST_WITH_SALARY_OVER_MILL("countSpecialistWithSalaryOverMill", "filter"),
+    ALL_MATCH_IS_ALL_HAVE_SALARY_OVER_900K("allMatchIsAllHaveSalaryOver900k"),
+    ANY_MATCH_IS_TEAM_HAS_BUSINESS_ANALYST("anyMatchIsTeamHasBusinessAnalyst"),
+    FIND_FIRST_SPECIALIST("findFirstSpecialist", true),
+    FIND_ANY_SPECIALIST("findAnySpecialist"),
+    NONE_MATCH_CHECK("noneMatchCheck"),
+    TO_ARRAY_SPECIALISTS("toArraySpecialists", "filter"),
+    REDUCE_ELEMETS_TO_TOTAL_SALARY("reduceElemetsToTotalSalary", "mapToInt"),
+    PARALLEL_AND_FOR_EACH_ORDERED_PRINT_SPECIALISTS("parallelAndForEachOrderedPrintSpecialists"),
+    GROUP_BY_SPECIALITY("groupBySpeciality"),
+    GROUP_BY_SALARY_OVER_1_MILL_OR_NOT("groupBySalaryOver1MillOrNot"),
+    GET_INT_SUMMARY_STATISTICS("getIntSummaryStatistics", "mapToInt");
+
+    private final String methodName;
+    private final boolean orderSensitive;
+    private final String stage;
+
+    StreamOperation(String methodName) {
+        this(methodName, false, null);
+    }
+
+    StreamOperation(String methodName, boolean orderSensitive) {
+        this(methodName, orderSensitive, null);
+    }
+
+    StreamOperation(String methodName, String stage) {
+        this(methodName, false, stage);
+    }
+
+    StreamOperation(String methodName, boolean orderSensitive, String stage) {
+        this.methodName = methodName;
+        this.orderSensitive = orderSensitive;
+        this.stage = stage;
+    }
+
+    /**
+     * @return имя метода {@link StreamAPI}, используется в метках метрик и именах MBean
+     */
+    public String getMethodName() {
+        return methodName;
+    }
+
+    /**
+     * @return имя промежуточной операции конвейера, после которой {@link StreamAPIMetrics} считает элементы,
+     * null, если промежуточной операции нет (источник передается сразу в терминальную операцию
+     * или skip/limit/flatMap/concat выполняются на источнике)
+     */
+    public String getStage() {
+        return stage;
+    }
+
+    /**
+     * @return true, если результат зависит от порядка обхода (префикс, первый элемент, печать по порядку)
+     * и в параллельном стриме операция требует буферизации, или если операция меняет специалистов
+     * (peekElements вызывает {@link Specialist#setSalary(int)}, и слушатели {@link SpecialistListener} должны
+     * вызываться в потоке вызывающего), такие операции {@link ExecutionPlanner} всегда выполняет последовательно.
+     * Сортировки к ним не относятся: в параллельном режиме {@link StreamAPI} сортирует устойчивой
+     * {@link SpecialistSorting#parallelSort(java.util.List, java.util.Comparator)}
+     */
+    public boolean isOrderSensitive() {
+        return orderSensitive;
+    }
+}
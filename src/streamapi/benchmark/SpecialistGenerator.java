@@ -0,0 +1,47 @@
+package streamapi.benchmark;
+
+import streamapi.Specialist;
+import streamapi.Speciality;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Генератор списков специалистов для бенчмарков.
+ * Имена берутся из ограниченного пула строк, чтобы список из десятков миллионов элементов помещался в куче
+ */
+public class SpecialistGenerator {
+    private static final String[] FIRST_NAMES = {"Ivan", "Petr", "Alexandr", "Dmitrii", "Alexey", "Nikolay", "Maria",
+            "Alexandra", "Svetlana", "Olga", "Sergey", "Anna", "Elena", "Mikhail", "Tatiana", "Andrey"};
+    private static final String[] LAST_NAMES = {"Ivanov", "Petrov", "Alexandrov", "Dmitriev", "Alexeev", "Nikolaev",
+            "Sidorov", "Smirnov", "Kuznetsov", "Popov", "Sokolov", "Lebedev", "Kozlov", "Novikov", "Morozov", "Volkov"};
+    private static final String[] NAMES = new String[FIRST_NAMES.length * LAST_NAMES.length];
+
+    static {
+        int i = 0;
+        for (String firstName : FIRST_NAMES) {
+            for (String lastName : LAST_NAMES) {
+                NAMES[i++] = firstName + " " + lastName;
+            }
+        }
+    }
+
+    /**
+     * @param size количество специалистов
+     * @param seed зерно генератора, одинаковое зерно дает одинаковый список
+     * @return список специалистов с зарплатой от 800 000 до 2 000 000
+     */
+    public static List<Specialist> generate(int size, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        Speciality[] specialities = Speciality.values();
+        List<Specialist> specialists = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            specialists.add(new Specialist(
+                    NAMES[random.nextInt(NAMES.length)],
+                    random.nextInt(800000, 2000001) / 1000 * 1000,
+                    specialities[random.nextInt(specialities.length)]));
+        }
+        return specialists;
+    }
+}
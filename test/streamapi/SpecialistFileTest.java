@@ -0,0 +1,64 @@
+package streamapi;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpecialistFileTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripKeepsEmptyAndNullNames() throws IOException {
+        List<Specialist> specialists = Arrays.asList(
+                new Specialist("", 1, Speciality.DEVELOPER),
+                new Specialist(null, 2, null),
+                new Specialist("Ivan Ivanov", 3, Speciality.QA_ENGINEER),
+                new Specialist("", 4, Speciality.BUSINESS_ANALYST),
+                new Specialist("Иван Иванов", 5, Speciality.DEVELOPER),
+                new Specialist("Ivan Ivanov", 6, Speciality.DEVELOPER));
+        Path path = directory.resolve("specialists.bin");
+        SpecialistFile.write(path, specialists);
+
+        try (SpecialistFile file = SpecialistFile.open(path)) {
+            assertEquals(specialists.size(), file.size());
+            for (int row = 0; row < specialists.size(); row++) {
+                Specialist expected = specialists.get(row);
+                assertEquals(expected.getName(), file.getName(row));
+                assertEquals(expected.getSalary(), file.getSalary(row));
+                assertEquals(expected.getSpeciality(), file.getSpeciality(row));
+            }
+            assertEquals(specialists, file.stream().collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void fileWithOnlyEmptyNamesHasNoNamesSection() throws IOException {
+        Path path = directory.resolve("empty-names.bin");
+        SpecialistFile.write(path, List.of(new Specialist("", 1, Speciality.DEVELOPER)));
+
+        try (SpecialistFile file = SpecialistFile.open(path)) {
+            assertEquals("", file.getName(0));
+            assertEquals(new Specialist("", 1, Speciality.DEVELOPER), file.getSpecialist(0));
+        }
+    }
+
+    @Test
+    void emptyFileOpens() throws IOException {
+        Path path = directory.resolve("empty.bin");
+        SpecialistFile.write(path, List.of());
+
+        try (SpecialistFile file = SpecialistFile.open(path)) {
+            assertEquals(0, file.size());
+            assertEquals(0, file.stream().count());
+            assertThrows(IndexOutOfBoundsException.class, () -> file.getName(0));
+        }
+    }
+}